@@ -0,0 +1,75 @@
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.portfolio.ReturnKernels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scalar against vectorized ReturnKernels over one column of the size of a long daily history
+ * or a large cross-section.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelsBenchmark {
+
+  @Param({"scalar", "vector"})
+  public String kernels;
+
+  @Param({"5000", "100000"})
+  public int length;
+
+  private ReturnKernels returnKernels;
+  private double[] closes;
+  private double[] buyPrices;
+  private double[] years;
+  private double[] out;
+
+  @Setup
+  public void setUp() {
+    returnKernels = "vector".equals(kernels) ? ReturnKernels.vector() : ReturnKernels.scalar();
+    Random random = new Random(42);
+    closes = new double[length];
+    buyPrices = new double[length];
+    years = new double[length];
+    out = new double[length];
+    double price = 100;
+    for (int i = 0; i < length; i++) {
+      price *= 1 + (random.nextDouble() - 0.5) * 0.04;
+      closes[i] = price;
+      buyPrices[i] = 10 + random.nextDouble() * 500;
+      years[i] = 0.1 + random.nextDouble() * 20;
+    }
+  }
+
+  @Benchmark
+  public double[] logReturns() {
+    returnKernels.logReturns(closes, length, out);
+    return out;
+  }
+
+  @Benchmark
+  public double variance() {
+    return returnKernels.variance(closes, length);
+  }
+
+  @Benchmark
+  public double[] annualizedReturns() {
+    returnKernels.annualizedReturns(buyPrices, closes, years, length, out);
+    return out;
+  }
+}
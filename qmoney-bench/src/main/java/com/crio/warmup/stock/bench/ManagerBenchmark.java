@@ -0,0 +1,75 @@
+
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.portfolio.PortfolioExecutor;
+import com.crio.warmup.stock.portfolio.PortfolioManagerImpl;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end manager paths against the stub provider. Each trade gets its own symbol so every
+ * trade costs one provider call; latencyMillis is the simulated round trip of that call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManagerBenchmark {
+
+  static final int THREADS = 16;
+
+  @Param({"10", "100", "1000"})
+  public int portfolioSize;
+
+  @Param({"0", "5"})
+  public long latencyMillis;
+
+  private List<PortfolioTrade> portfolio;
+  private PortfolioManagerImpl manager;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    portfolio = new ArrayList<>(portfolioSize);
+    for (int i = 0; i < portfolioSize; i++) {
+      portfolio.add(new PortfolioTrade("SYM" + i, 1 + random.nextInt(100),
+          Payloads.END_DATE.minusDays(30 + random.nextInt(1_500))));
+    }
+    manager = new PortfolioManagerImpl(new StubStockQuotesService(latencyMillis),
+        new PortfolioExecutor(THREADS, Duration.ofMinutes(5)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    manager.close();
+  }
+
+  @Benchmark
+  public List<AnnualizedReturn> sequential() throws Exception {
+    return manager.calculateAnnualizedReturn(portfolio, Payloads.END_DATE);
+  }
+
+  @Benchmark
+  public List<AnnualizedReturn> parallel() throws Exception {
+    return manager.calculateAnnualizedReturnParallel(portfolio, Payloads.END_DATE, THREADS);
+  }
+}
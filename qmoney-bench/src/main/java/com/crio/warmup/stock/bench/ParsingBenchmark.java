@@ -0,0 +1,62 @@
+
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.quotes.StockQuoteServiceFactory;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Provider response handling, from the raw body to candles, with the HTTP call stubbed out.
+ *
+ * <p>Tiingo returns exactly the requested days; Alphavantage always returns the full history and
+ * the requested year is filtered out of it, so its cost tracks the history length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+  @Param({"250", "1250", "5000"})
+  public int tradingDays;
+
+  private StockQuotesService tiingo;
+  private StockQuotesService alphavantage;
+  private LocalDate from;
+
+  @Setup
+  public void setUp() {
+    tiingo = StockQuoteServiceFactory.INSTANCE.getService("tiingo",
+        new StubRestTemplate(Payloads.tiingo(tradingDays, 42)));
+    alphavantage = StockQuoteServiceFactory.INSTANCE.getService("alphavantage",
+        new StubRestTemplate(Payloads.alphavantage("AAPL", tradingDays, 42)));
+    from = Payloads.END_DATE.minusYears(1);
+  }
+
+  @Benchmark
+  public List<Candle> tiingoFullRange() throws Exception {
+    return tiingo.getStockQuote("AAPL", LocalDate.MIN, Payloads.END_DATE);
+  }
+
+  @Benchmark
+  public CandleSeries alphavantageLastYear() throws Exception {
+    return alphavantage.getCandleSeries("AAPL", from, Payloads.END_DATE);
+  }
+}
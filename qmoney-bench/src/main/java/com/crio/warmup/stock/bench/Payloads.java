@@ -0,0 +1,86 @@
+
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic provider payloads shaped like recorded Tiingo and Alphavantage responses.
+ *
+ * <p>Prices follow a seeded random walk over weekdays, so every run parses byte-identical input
+ * and the numbers stay comparable between releases.
+ */
+final class Payloads {
+
+  static final LocalDate END_DATE = LocalDate.parse("2019-12-31");
+
+  private Payloads() {}
+
+  // Tiingo daily prices for the given number of trading days ending at END_DATE, oldest first.
+  static String tiingo(int tradingDays, long seed) {
+    CandleSeries series = series(tradingDays, seed);
+    StringBuilder json = new StringBuilder(tradingDays * 260).append('[');
+    for (int i = 0; i < series.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT, "{\"date\":\"%sT00:00:00.000Z\",\"close\":%.2f,"
+          + "\"high\":%.2f,\"low\":%.2f,\"open\":%.2f,\"volume\":%d,\"adjClose\":%.4f,"
+          + "\"adjHigh\":%.4f,\"adjLow\":%.4f,\"adjOpen\":%.4f,\"adjVolume\":%d,"
+          + "\"divCash\":0.0,\"splitFactor\":1.0}", series.getDate(i), series.getClose(i),
+          series.getHigh(i), series.getLow(i), series.getOpen(i), 1_000_000 + i,
+          series.getClose(i), series.getHigh(i), series.getLow(i), series.getOpen(i),
+          1_000_000 + i));
+    }
+    return json.append(']').toString();
+  }
+
+  // Alphavantage TIME_SERIES_DAILY_ADJUSTED full output, newest day first.
+  static String alphavantage(String symbol, int tradingDays, long seed) {
+    CandleSeries series = series(tradingDays, seed);
+    StringBuilder json = new StringBuilder(tradingDays * 260)
+        .append("{\"Meta Data\":{\"1. Information\":\"Daily Time Series with Splits and ")
+        .append("Dividend Events\",\"2. Symbol\":\"").append(symbol)
+        .append("\",\"3. Last Refreshed\":\"").append(END_DATE)
+        .append("\",\"4. Output Size\":\"Full size\",\"5. Time Zone\":\"US/Eastern\"},")
+        .append("\"Time Series (Daily)\":{");
+    for (int i = series.size() - 1; i >= 0; i--) {
+      if (i < series.size() - 1) {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT, "\"%s\":{\"1. open\":\"%.4f\",\"2. high\":"
+          + "\"%.4f\",\"3. low\":\"%.4f\",\"4. close\":\"%.4f\",\"5. adjusted close\":\"%.4f\","
+          + "\"6. volume\":\"%d\",\"7. dividend amount\":\"0.0000\","
+          + "\"8. split coefficient\":\"1.0\"}", series.getDate(i), series.getOpen(i),
+          series.getHigh(i), series.getLow(i), series.getClose(i), series.getClose(i),
+          1_000_000 + i));
+    }
+    return json.append("}}").toString();
+  }
+
+  static CandleSeries series(int tradingDays, long seed) {
+    Random random = new Random(seed);
+    CandleSeries.Builder builder = CandleSeries.builder(tradingDays);
+    LocalDate day = END_DATE;
+    int[] epochDays = new int[tradingDays];
+    for (int i = tradingDays - 1; i >= 0; i--) {
+      while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+        day = day.minusDays(1);
+      }
+      epochDays[i] = (int) day.toEpochDay();
+      day = day.minusDays(1);
+    }
+    double close = 50 + random.nextInt(150);
+    for (int i = 0; i < tradingDays; i++) {
+      double open = close * (1 + random.nextGaussian() * 0.005);
+      close = open * (1 + random.nextGaussian() * 0.015);
+      double high = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+      double low = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+      builder.add(epochDays[i], open, high, low, close);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,80 @@
+
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.portfolio.PortfolioManagerImpl;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CPU-only stages after quotes are in: the per-trade return formula and the final ranking,
+ * which uses the same descending comparator as PortfolioManagerImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReturnsBenchmark {
+
+  private static final Comparator<AnnualizedReturn> DESCENDING =
+      Comparator.comparingDouble(AnnualizedReturn::getAnnualizedReturn).reversed();
+
+  @Param({"100", "10000"})
+  public int trades;
+
+  private List<PortfolioTrade> portfolio;
+  private double[] buyPrices;
+  private double[] sellPrices;
+  private List<AnnualizedReturn> unsorted;
+
+  @Setup
+  public void setUp() throws Exception {
+    Random random = new Random(42);
+    portfolio = new ArrayList<>(trades);
+    buyPrices = new double[trades];
+    sellPrices = new double[trades];
+    for (int i = 0; i < trades; i++) {
+      portfolio.add(new PortfolioTrade("SYM" + i, 1 + random.nextInt(100),
+          Payloads.END_DATE.minusDays(30 + random.nextInt(3_000))));
+      buyPrices[i] = 10 + random.nextDouble() * 500;
+      sellPrices[i] = buyPrices[i] * (0.5 + random.nextDouble());
+    }
+    unsorted = calculateAnnualizedReturns();
+  }
+
+  @Benchmark
+  public List<AnnualizedReturn> calculateAnnualizedReturns() throws Exception {
+    LocalDate endDate = Payloads.END_DATE;
+    List<AnnualizedReturn> returns = new ArrayList<>(trades);
+    for (int i = 0; i < trades; i++) {
+      returns.add(PortfolioManagerImpl.calculateAnnualizedReturns(endDate, portfolio.get(i),
+          buyPrices[i], sellPrices[i]));
+    }
+    return returns;
+  }
+
+  @Benchmark
+  public List<AnnualizedReturn> sortDescending() {
+    List<AnnualizedReturn> returns = new ArrayList<>(unsorted);
+    returns.sort(DESCENDING);
+    return returns;
+  }
+}
@@ -0,0 +1,19 @@
+
+package com.crio.warmup.stock.bench;
+
+import org.springframework.web.client.RestTemplate;
+
+// Answers every GET with the same recorded body, keeping the network out of parsing benchmarks.
+final class StubRestTemplate extends RestTemplate {
+
+  private final String body;
+
+  StubRestTemplate(String body) {
+    this.body = body;
+  }
+
+  @Override
+  public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+    return responseType.cast(body);
+  }
+}
@@ -0,0 +1,45 @@
+
+package com.crio.warmup.stock.bench;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local provider stand-in: serves generated candles after a fixed per-call latency, so manager
+ * benchmarks measure our own overhead plus a known amount of simulated network time.
+ */
+final class StubStockQuotesService implements StockQuotesService {
+
+  static final int HISTORY_DAYS = 1_500;
+
+  private final long latencyNanos;
+  private final Map<String, CandleSeries> history = new ConcurrentHashMap<>();
+
+  StubStockQuotesService(long latencyMillis) {
+    this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to) {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to) {
+    if (latencyNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(latencyNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return history.computeIfAbsent(symbol,
+        key -> Payloads.series(HISTORY_DAYS, key.hashCode())).slice(from, to);
+  }
+}
@@ -4,21 +4,28 @@ package com.crio.warmup.stock;
 
 import com.crio.warmup.stock.dto.*;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.crio.warmup.stock.json.PortfolioTradeReader;
 import com.crio.warmup.stock.log.UncaughtExceptionHandler;
+import com.crio.warmup.stock.metrics.JmxExporter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
 import com.crio.warmup.stock.portfolio.PortfolioManager;
 import com.crio.warmup.stock.portfolio.PortfolioManagerImpl;
 import com.crio.warmup.stock.portfolio.PortfolioManagerFactory;
+import com.crio.warmup.stock.quotes.QuoteHttpClients;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.crio.warmup.stock.log.UncaughtExceptionHandler;
 import com.crio.warmup.stock.portfolio.PortfolioManager;
 import com.crio.warmup.stock.portfolio.PortfolioManagerFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -56,14 +63,12 @@ public class PortfolioManagerApplication {
 
   public static List<String> mainReadFile(String[] args) throws IOException, URISyntaxException {
 
-    File inputFile = resolveFileFromResources(args[0]);
-    ObjectMapper oM = getObjectMapper();
-    PortfolioTrade[] portfolioTrades = oM.readValue(inputFile, PortfolioTrade[].class);
-
     ArrayList<String> symbols = new ArrayList<>();
 
-    for (PortfolioTrade p : portfolioTrades) {
-      symbols.add(p.getSymbol());
+    try (PortfolioTradeReader trades = openTrades(args[0])) {
+      while (trades.hasNext()) {
+        symbols.add(trades.next().getSymbol());
+      }
     }
 
     return symbols;
@@ -98,8 +103,20 @@ public class PortfolioManagerApplication {
 
   private static void printJsonObject(Object object) throws IOException {
     Logger logger = Logger.getLogger(PortfolioManagerApplication.class.getCanonicalName());
-    ObjectMapper mapper = new ObjectMapper();
-    logger.info(mapper.writeValueAsString(object));
+    logger.info(JsonCodecs.getDefault().writer().writeValueAsString(object));
+  }
+
+  // Trades are read from the given path when it names a file, and from the classpath otherwise.
+  public static PortfolioTradeReader openTrades(String filename) throws IOException {
+    Path path = Paths.get(filename);
+    if (Files.isRegularFile(path)) {
+      return PortfolioTradeReader.open(path);
+    }
+    InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    if (in == null) {
+      throw new FileNotFoundException(filename);
+    }
+    return PortfolioTradeReader.open(in);
   }
 
   private static File resolveFileFromResources(String filename) throws URISyntaxException {
@@ -108,9 +125,7 @@ public class PortfolioManagerApplication {
   }
 
   private static ObjectMapper getObjectMapper() {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    return objectMapper;
+    return JsonCodecs.getDefault().getObjectMapper();
   }
 
 
@@ -183,7 +198,7 @@ public class PortfolioManagerApplication {
   public static List<TotalReturnsDto> mainReadQuotesHelper(String[] args,
       List<PortfolioTrade> PortfolioTrades) {
 
-    RestTemplate restTemplate = new RestTemplate();
+    RestTemplate restTemplate = QuoteHttpClients.getRestTemplate();
     List<TotalReturnsDto> totalReturnsDtos = new ArrayList<>();
 
     for (PortfolioTrade p : PortfolioTrades) {
@@ -207,16 +222,10 @@ public class PortfolioManagerApplication {
   // ./gradlew test --tests PortfolioManagerApplicationTest.mainReadFile
   public static List<PortfolioTrade> readTradesFromJson(String filename)
       throws IOException, URISyntaxException {
-    File inputFile = resolveFileFromResources(filename);
-
-    ObjectMapper oM = getObjectMapper();
-
-    PortfolioTrade[] portfolioTrades = oM.readValue(inputFile, PortfolioTrade[].class);
-
     List<PortfolioTrade> portfolioTradesList = new ArrayList<>();
 
-    for (PortfolioTrade p : portfolioTrades) {
-      portfolioTradesList.add(p);
+    try (PortfolioTradeReader trades = openTrades(filename)) {
+      trades.forEachRemaining(portfolioTradesList::add);
     }
 
     // System.out.println(portfolioTradesList);
@@ -255,7 +264,7 @@ public class PortfolioManagerApplication {
 
     String uri = prepareUrl(trade, endDate, token);
 
-    RestTemplate restTemplate = new RestTemplate();
+    RestTemplate restTemplate = QuoteHttpClients.getRestTemplate();
 
     Candle[] tingoCandle = restTemplate.getForObject(uri, TiingoCandle[].class);
 
@@ -275,19 +284,8 @@ public class PortfolioManagerApplication {
       annualizedReturns.add(calculateAnnualizedReturns(LocalDate.parse(args[1]), portfolioTrade,
           buyPrice, sellPrice));
     }
-    Collections.sort(annualizedReturns, new Comparator<AnnualizedReturn>() {
-
-      @Override
-      public int compare(AnnualizedReturn a1, AnnualizedReturn a2) {
-        if (a1.getAnnualizedReturn() > a2.getAnnualizedReturn())
-          return -1;
-        else if (a1.getAnnualizedReturn() < a2.getAnnualizedReturn())
-          return 1;
-        else
-          return 0;
-      }
-
-    });
+    annualizedReturns.sort(
+        Comparator.comparingDouble(AnnualizedReturn::getAnnualizedReturn).reversed());
     return annualizedReturns;
   }
 
@@ -328,8 +326,8 @@ public class PortfolioManagerApplication {
     String file = args[0];
     LocalDate endDate = LocalDate.parse(args[1]);
     String contents = readFileAsString(file);
-    ObjectMapper objectMapper = getObjectMapper();
-    PortfolioTrade[] portfolioTrades = objectMapper.readValue(file, PortfolioTrade[].class);
+    PortfolioTrade[] portfolioTrades =
+        JsonCodecs.getDefault().portfolioTradesReader().readValue(contents);
     PortfolioManager portfolioManager = new PortfolioManagerImpl();
     return portfolioManager.calculateAnnualizedReturn(Arrays.asList(portfolioTrades), endDate);
   }
@@ -344,6 +342,7 @@ public class PortfolioManagerApplication {
 
   public static void main(String[] args) throws Exception {
     Thread.setDefaultUncaughtExceptionHandler(new UncaughtExceptionHandler());
+    JmxExporter.register(MetricsRegistry.getDefault());
     ThreadContext.put("runId", UUID.randomUUID().toString());
 
     printJsonObject(mainReadFile(args));
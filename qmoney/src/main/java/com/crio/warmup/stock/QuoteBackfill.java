@@ -0,0 +1,269 @@
+
+package com.crio.warmup.stock;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.log.UncaughtExceptionHandler;
+import com.crio.warmup.stock.metrics.JmxExporter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.crio.warmup.stock.quotes.CandleStore;
+import com.crio.warmup.stock.quotes.StockQuoteServiceFactory;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Warms a {@link CandleStore} with daily candles for a list of symbols ahead of the analytics
+ * runs that will read them.
+ *
+ * <p>Symbols are fetched on a few worker threads, all drawing on the provider's shared rate
+ * limiter, so the run stays within quota however many workers there are. Each symbol's stored
+ * covered range is its checkpoint: every fetched chunk is merged into the store before the next
+ * one is requested, and a rerun after an interruption only fetches what is still missing.
+ * Symbols that fail are reported and picked up by the next run.
+ *
+ * <pre>
+ * ./gradlew backfill --args="AAPL,MSFT,GOOGL 2015-01-01 2020-12-31 --provider tiingo"
+ * ./gradlew backfill --args="@symbols.txt 2015-01-01 2020-12-31 --threads 8 --chunk-days 365"
+ * </pre>
+ */
+public class QuoteBackfill {
+
+  public static final int DEFAULT_THREADS = 4;
+  // 0 fetches each missing range with a single call.
+  public static final int DEFAULT_CHUNK_DAYS = 0;
+
+  private static final Logger log = LogManager.getLogger(QuoteBackfill.class);
+
+  private final StockQuotesService service;
+  private final CandleStore store;
+  private final int threads;
+  private final int chunkDays;
+  private final Clock clock;
+
+  public QuoteBackfill(StockQuotesService service, CandleStore store, int threads,
+      int chunkDays) {
+    this(service, store, threads, chunkDays, Clock.systemDefaultZone());
+  }
+
+  QuoteBackfill(StockQuotesService service, CandleStore store, int threads, int chunkDays,
+      Clock clock) {
+    this.service = service;
+    this.store = store;
+    this.threads = threads;
+    this.chunkDays = chunkDays;
+    this.clock = clock;
+  }
+
+  /**
+   * Backfills [from, to] for every symbol. Days from today on may still change and are never
+   * stored, matching {@code CachingStockQuotesService}.
+   */
+  public Result run(List<String> symbols, LocalDate from, LocalDate to)
+      throws InterruptedException {
+    LocalDate settled = LocalDate.now(clock).minusDays(1);
+    LocalDate end = to.isAfter(settled) ? settled : to;
+    Result result = new Result();
+    if (from.isAfter(end)) {
+      result.upToDate.addAndGet(symbols.size());
+      return result;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      for (String symbol : symbols) {
+        pool.execute(() -> {
+          try {
+            int calls = backfill(symbol, from, end);
+            (calls == 0 ? result.upToDate : result.fetched).incrementAndGet();
+            result.calls.addAndGet(calls);
+          } catch (Exception e) {
+            log.warn("Backfill of {} failed: {}", symbol, e.toString());
+            result.failures.put(symbol, e);
+          }
+        });
+      }
+      pool.shutdown();
+      while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.info("Backfill in progress: {}", result);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return result;
+  }
+
+  // Fills the gaps around the stored range one chunk at a time, writing after each chunk.
+  // Returns the number of upstream calls made.
+  int backfill(String symbol, LocalDate from, LocalDate to)
+      throws IOException, JsonProcessingException, StockQuoteServiceException {
+    CandleStore.Entry entry = store.read(symbol);
+    int calls = 0;
+    if (entry == null) {
+      LocalDate chunkTo = chunkEnd(from, to);
+      entry = CandleStore.Entry.of(fetch(symbol, from, chunkTo), from, chunkTo);
+      store.write(symbol, entry);
+      calls++;
+    }
+    while (entry.getCoveredTo().isBefore(to)) {
+      LocalDate chunkFrom = entry.getCoveredTo().plusDays(1);
+      LocalDate chunkTo = chunkEnd(chunkFrom, to);
+      CandleSeries chunk = fetch(symbol, chunkFrom, chunkTo).slice(chunkFrom, chunkTo);
+      entry = CandleStore.Entry.of(CandleSeries.concat(entry.getSeries(), chunk),
+          entry.getCoveredFrom(), chunkTo);
+      store.write(symbol, entry);
+      calls++;
+    }
+    // Backwards from the stored range, so the covered range stays contiguous.
+    while (entry.getCoveredFrom().isAfter(from)) {
+      LocalDate chunkTo = entry.getCoveredFrom().minusDays(1);
+      LocalDate chunkFrom = chunkStart(from, chunkTo);
+      CandleSeries chunk = fetch(symbol, chunkFrom, chunkTo).slice(chunkFrom, chunkTo);
+      entry = CandleStore.Entry.of(CandleSeries.concat(chunk, entry.getSeries()), chunkFrom,
+          entry.getCoveredTo());
+      store.write(symbol, entry);
+      calls++;
+    }
+    return calls;
+  }
+
+  private CandleSeries fetch(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return CandleSeries.of(service.getStockQuote(symbol, from, to));
+  }
+
+  private LocalDate chunkEnd(LocalDate chunkFrom, LocalDate to) {
+    if (chunkDays <= 0) {
+      return to;
+    }
+    LocalDate end = chunkFrom.plusDays(chunkDays - 1);
+    return end.isAfter(to) ? to : end;
+  }
+
+  private LocalDate chunkStart(LocalDate from, LocalDate chunkTo) {
+    if (chunkDays <= 0) {
+      return from;
+    }
+    LocalDate start = chunkTo.minusDays(chunkDays - 1);
+    return start.isBefore(from) ? from : start;
+  }
+
+  /**
+   * Outcome of a run: symbols fetched, symbols already up to date, upstream calls made, and the
+   * failure of each symbol that could not be completed.
+   */
+  public static final class Result {
+
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger upToDate = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Map<String, Exception> failures =
+        Collections.synchronizedMap(new TreeMap<>());
+
+    public int getFetched() {
+      return fetched.get();
+    }
+
+    public int getUpToDate() {
+      return upToDate.get();
+    }
+
+    public int getCalls() {
+      return calls.get();
+    }
+
+    public Map<String, Exception> getFailures() {
+      return failures;
+    }
+
+    @Override
+    public String toString() {
+      return "fetched=" + fetched + ", upToDate=" + upToDate + ", calls=" + calls
+          + ", failed=" + failures.size();
+    }
+  }
+
+  // Symbols given inline as a comma-separated list, or as @file with one symbol per line.
+  static List<String> parseSymbols(String argument) throws IOException {
+    List<String> tokens = argument.startsWith("@")
+        ? Files.readAllLines(Paths.get(argument.substring(1)))
+        : Arrays.asList(argument.split(","));
+    Set<String> symbols = new LinkedHashSet<>();
+    for (String token : tokens) {
+      String symbol = token.replaceFirst("#.*", "").trim().toUpperCase(Locale.ROOT);
+      if (!symbol.isEmpty()) {
+        symbols.add(symbol);
+      }
+    }
+    return new ArrayList<>(symbols);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Thread.setDefaultUncaughtExceptionHandler(new UncaughtExceptionHandler());
+    if (args.length < 3) {
+      System.err.println("Usage: backfill <SYMBOL,SYMBOL,...|@file> <from> <to>"
+          + " [--provider tiingo|alphavantage] [--store dir] [--threads n] [--chunk-days n]");
+      System.exit(2);
+    }
+    List<String> symbols = parseSymbols(args[0]);
+    LocalDate from = LocalDate.parse(args[1]);
+    LocalDate to = LocalDate.parse(args[2]);
+    String provider = "tiingo";
+    Path storeDirectory = CandleStore.DEFAULT_DIRECTORY;
+    int threads = DEFAULT_THREADS;
+    int chunkDays = DEFAULT_CHUNK_DAYS;
+    for (int i = 3; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--provider":
+          provider = args[i + 1];
+          break;
+        case "--store":
+          storeDirectory = Paths.get(args[i + 1]);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(args[i + 1]);
+          break;
+        case "--chunk-days":
+          chunkDays = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+
+    JmxExporter.register(MetricsRegistry.getDefault());
+    QuoteBackfill backfill = new QuoteBackfill(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider),
+        new CandleStore(storeDirectory), threads, chunkDays);
+    log.info("Backfilling {} symbols from {} to {} into {}", symbols.size(), from, to,
+        storeDirectory);
+    Result result = backfill.run(symbols, from, to);
+    log.info("Backfill finished: {}", result);
+    if (!result.getFailures().isEmpty()) {
+      log.error("Failed symbols, rerun to resume: {}", result.getFailures().keySet().stream()
+          .collect(Collectors.joining(",")));
+      System.exit(1);
+    }
+  }
+}
@@ -22,6 +22,12 @@ public class AlphavantageCandle implements Candle {
   private Double high;
   @JsonProperty("3. low")
   private Double low;
+  @JsonProperty("5. adjusted close")
+  private Double adjustedClose;
+  @JsonProperty("7. dividend amount")
+  private Double dividend;
+  @JsonProperty("8. split coefficient")
+  private Double splitFactor;
   @JsonIgnore
   private LocalDate date;
 
@@ -58,6 +64,20 @@ public class AlphavantageCandle implements Candle {
     // TODO Auto-generated method stub
     return date;
   }
+
+  public Double getAdjustedClose() {
+    return adjustedClose;
+  }
+
+  @Override
+  public Double getDividend() {
+    return dividend;
+  }
+
+  @Override
+  public Double getSplitFactor() {
+    return splitFactor;
+  }
 }
 
 
@@ -1,16 +1,25 @@
 
 package com.crio.warmup.stock.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class AnnualizedReturn {
 
   private final String symbol;
   private final Double annualizedReturn;
   private final Double totalReturns;
+  private final RiskMetrics risk;
 
   public AnnualizedReturn(String symbol, Double annualizedReturn, Double totalReturns) {
+    this(symbol, annualizedReturn, totalReturns, null);
+  }
+
+  public AnnualizedReturn(String symbol, Double annualizedReturn, Double totalReturns,
+      RiskMetrics risk) {
     this.symbol = symbol;
     this.annualizedReturn = annualizedReturn;
     this.totalReturns = totalReturns;
+    this.risk = risk;
   }
 
   public String getSymbol() {
@@ -24,4 +33,14 @@ public class AnnualizedReturn {
   public Double getTotalReturns() {
     return totalReturns;
   }
+
+  // Only present when risk metrics were requested, and only serialized then.
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public RiskMetrics getRisk() {
+    return risk;
+  }
+
+  public AnnualizedReturn withRisk(RiskMetrics risk) {
+    return new AnnualizedReturn(symbol, annualizedReturn, totalReturns, risk);
+  }
 }
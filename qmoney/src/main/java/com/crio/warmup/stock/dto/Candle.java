@@ -14,4 +14,14 @@ public interface Candle {
   Double getLow();
 
   LocalDate getDate();
+
+  // Cash dividend per share going ex on this day; null when the provider reports none.
+  default Double getDividend() {
+    return null;
+  }
+
+  // Shares each share became on this day, e.g. 4.0 for a 4-for-1 split; null when none reported.
+  default Double getSplitFactor() {
+    return null;
+  }
 }
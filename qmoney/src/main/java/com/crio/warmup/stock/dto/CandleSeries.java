@@ -0,0 +1,603 @@
+
+package com.crio.warmup.stock.dto;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Date-ordered daily candles held in parallel primitive columns: epoch days as ints and open,
+ * high, low and close as doubles. Missing prices are stored as NaN.
+ *
+ * <p>Slices share the underlying columns, so {@link #slice(LocalDate, LocalDate)} is a binary
+ * search and never copies. {@link #asCandles()} exposes the series through the {@link Candle}
+ * API for existing callers; {@link #of(List)} recognises such views and unwraps them again.
+ *
+ * <p>Series whose provider reported corporate actions also carry a dividend and a split column,
+ * and a cumulative adjustment index built from them once: the number of shares one share held
+ * since before the first row has become by each row, dividends reinvested at that day's close.
+ * {@link #getAdjustment(int, int)} divides two entries of the index, so adjusting any holding
+ * period is O(1). Series without corporate actions keep none of these columns.
+ */
+public final class CandleSeries {
+
+  private static final double NO_DIVIDEND = 0;
+  private static final double NO_SPLIT = 1;
+
+  private static final CandleSeries EMPTY = new CandleSeries(new int[0], new double[0],
+      new double[0], new double[0], new double[0], null, null, 0, 0);
+
+  private final int[] days;
+  private final double[] open;
+  private final double[] high;
+  private final double[] low;
+  private final double[] close;
+  // Null when no row has a dividend, or a split, respectively.
+  private final double[] dividend;
+  private final double[] split;
+  // Cumulative adjustment index over the whole columns; null when both columns above are.
+  private final double[] adjustment;
+  private final int offset;
+  private final int length;
+
+  // Builds the adjustment index over the first offset + length rows.
+  private CandleSeries(int[] days, double[] open, double[] high, double[] low, double[] close,
+      double[] dividend, double[] split, int offset, int length) {
+    this(days, open, high, low, close, dividend, split,
+        adjustmentIndex(close, dividend, split, offset + length), offset, length);
+  }
+
+  private CandleSeries(int[] days, double[] open, double[] high, double[] low, double[] close,
+      double[] dividend, double[] split, double[] adjustment, int offset, int length) {
+    this.days = days;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.dividend = dividend;
+    this.split = split;
+    this.adjustment = adjustment;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public static CandleSeries empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Wraps the given columns without copying. All arrays must have the same length and the days
+   * must be strictly ascending.
+   */
+  public static CandleSeries wrap(int[] days, double[] open, double[] high, double[] low,
+      double[] close) {
+    return wrap(days, open, high, low, close, null, null);
+  }
+
+  /**
+   * Like {@link #wrap(int[], double[], double[], double[], double[])}, with per-day dividends
+   * (0 when none) and split factors (1 when none). Either column may be null, and a column
+   * without any corporate action is dropped.
+   */
+  public static CandleSeries wrap(int[] days, double[] open, double[] high, double[] low,
+      double[] close, double[] dividend, double[] split) {
+    int length = days.length;
+    if (open.length != length || high.length != length || low.length != length
+        || close.length != length || (dividend != null && dividend.length != length)
+        || (split != null && split.length != length)) {
+      throw new IllegalArgumentException("Candle columns must have the same length");
+    }
+    return new CandleSeries(days, open, high, low, close,
+        hasAny(dividend, length, NO_DIVIDEND) ? dividend : null,
+        hasAny(split, length, NO_SPLIT) ? split : null, 0, length);
+  }
+
+  /**
+   * Converts date-ordered candles into a series. Lists returned by {@link #asCandles()} are
+   * unwrapped without copying.
+   */
+  public static CandleSeries of(List<? extends Candle> candles) {
+    if (candles instanceof CandleList) {
+      return ((CandleList) candles).series;
+    }
+    int length = candles.size();
+    int[] days = new int[length];
+    double[] open = new double[length];
+    double[] high = new double[length];
+    double[] low = new double[length];
+    double[] close = new double[length];
+    double[] dividend = null;
+    double[] split = null;
+    int i = 0;
+    for (Candle candle : candles) {
+      days[i] = (int) candle.getDate().toEpochDay();
+      open[i] = unbox(candle.getOpen());
+      high[i] = unbox(candle.getHigh());
+      low[i] = unbox(candle.getLow());
+      close[i] = unbox(candle.getClose());
+      double cash = dividendOf(candle.getDividend());
+      if (cash != NO_DIVIDEND) {
+        dividend = column(dividend, length, NO_DIVIDEND);
+        dividend[i] = cash;
+      }
+      double factor = splitOf(candle.getSplitFactor());
+      if (factor != NO_SPLIT) {
+        split = column(split, length, NO_SPLIT);
+        split[i] = factor;
+      }
+      i++;
+    }
+    return new CandleSeries(days, open, high, low, close, dividend, split, 0, length);
+  }
+
+  /**
+   * Concatenates date-ordered series whose ranges do not overlap into one series.
+   */
+  public static CandleSeries concat(CandleSeries... parts) {
+    int length = 0;
+    for (CandleSeries part : parts) {
+      length += part.length;
+    }
+    int[] days = new int[length];
+    double[] open = new double[length];
+    double[] high = new double[length];
+    double[] low = new double[length];
+    double[] close = new double[length];
+    double[] dividend = null;
+    double[] split = null;
+    int position = 0;
+    for (CandleSeries part : parts) {
+      System.arraycopy(part.days, part.offset, days, position, part.length);
+      System.arraycopy(part.open, part.offset, open, position, part.length);
+      System.arraycopy(part.high, part.offset, high, position, part.length);
+      System.arraycopy(part.low, part.offset, low, position, part.length);
+      System.arraycopy(part.close, part.offset, close, position, part.length);
+      if (part.dividend != null) {
+        dividend = column(dividend, length, NO_DIVIDEND);
+        System.arraycopy(part.dividend, part.offset, dividend, position, part.length);
+      }
+      if (part.split != null) {
+        split = column(split, length, NO_SPLIT);
+        System.arraycopy(part.split, part.offset, split, position, part.length);
+      }
+      position += part.length;
+    }
+    return new CandleSeries(days, open, high, low, close, dividend, split, 0, length);
+  }
+
+  public int size() {
+    return length;
+  }
+
+  public boolean isEmpty() {
+    return length == 0;
+  }
+
+  public int getEpochDay(int index) {
+    return days[offset + checkIndex(index)];
+  }
+
+  public LocalDate getDate(int index) {
+    return LocalDate.ofEpochDay(getEpochDay(index));
+  }
+
+  public double getOpen(int index) {
+    return open[offset + checkIndex(index)];
+  }
+
+  public double getHigh(int index) {
+    return high[offset + checkIndex(index)];
+  }
+
+  public double getLow(int index) {
+    return low[offset + checkIndex(index)];
+  }
+
+  public double getClose(int index) {
+    return close[offset + checkIndex(index)];
+  }
+
+  // Cash dividend per share going ex on the day, 0 when none.
+  public double getDividend(int index) {
+    int row = offset + checkIndex(index);
+    return dividend == null ? NO_DIVIDEND : dividend[row];
+  }
+
+  // Shares each share became on the day, e.g. 4 for a 4-for-1 split; 1 when none.
+  public double getSplitFactor(int index) {
+    int row = offset + checkIndex(index);
+    return split == null ? NO_SPLIT : split[row];
+  }
+
+  public boolean hasAdjustments() {
+    return adjustment != null;
+  }
+
+  /**
+   * Returns the shares one share bought on day {@code fromIndex}, after that day's corporate
+   * actions, has become by the close of day {@code toIndex}, splits applied and dividends
+   * reinvested at the close of their ex-date. Multiplying {@code getClose(toIndex)} by it gives
+   * the split- and dividend-adjusted value of a share bought on {@code fromIndex}.
+   */
+  public double getAdjustment(int fromIndex, int toIndex) {
+    int from = offset + checkIndex(fromIndex);
+    int to = offset + checkIndex(toIndex);
+    return adjustment == null ? 1 : adjustment[to] / adjustment[from];
+  }
+
+  /**
+   * Returns the candles dated within [from, to] as a view over the same columns.
+   */
+  public CandleSeries slice(LocalDate from, LocalDate to) {
+    int start = lowerBound(from.toEpochDay());
+    int end = lowerBound(to.toEpochDay() + 1);
+    return subSeries(start, Math.max(start, end));
+  }
+
+  /**
+   * Returns the candles at positions [fromIndex, toIndex) as a view over the same columns.
+   */
+  public CandleSeries subSeries(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException(
+          "Range [" + fromIndex + ", " + toIndex + ") out of bounds for length " + length);
+    }
+    if (fromIndex == 0 && toIndex == length) {
+      return this;
+    }
+    return new CandleSeries(days, open, high, low, close, dividend, split, adjustment,
+        offset + fromIndex, toIndex - fromIndex);
+  }
+
+  /**
+   * Returns the position of the first candle dated on or after the given epoch day, or
+   * {@link #size()} if there is none.
+   */
+  public int lowerBound(long epochDay) {
+    int lo = offset;
+    int hi = offset + length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (days[mid] < epochDay) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo - offset;
+  }
+
+  /**
+   * Copies this series into freshly allocated columns, e.g. before handing a small slice of a
+   * large series to a long-lived owner.
+   */
+  public CandleSeries compact() {
+    return new CandleSeries(copy(days), copy(open), copy(high), copy(low), copy(close),
+        dividend != null ? copy(dividend) : null, split != null ? copy(split) : null, 0, length);
+  }
+
+  public List<Candle> asCandles() {
+    return length == 0 ? Collections.emptyList() : new CandleList(this);
+  }
+
+  private int[] copy(int[] column) {
+    int[] result = new int[length];
+    System.arraycopy(column, offset, result, 0, length);
+    return result;
+  }
+
+  private double[] copy(double[] column) {
+    double[] result = new double[length];
+    System.arraycopy(column, offset, result, 0, length);
+    return result;
+  }
+
+  // Prefix products of each day's split factor times (1 + dividend / close): the shares held at
+  // each row per share held before row 0. Only ratios of its entries are ever used.
+  private static double[] adjustmentIndex(double[] close, double[] dividend, double[] split,
+      int length) {
+    if (dividend == null && split == null) {
+      return null;
+    }
+    double[] index = new double[length];
+    double shares = 1;
+    for (int i = 0; i < length; i++) {
+      if (split != null) {
+        shares *= split[i];
+      }
+      if (dividend != null && dividend[i] > 0 && close[i] > 0) {
+        shares *= 1 + dividend[i] / close[i];
+      }
+      index[i] = shares;
+    }
+    return index;
+  }
+
+  private static boolean hasAny(double[] column, int length, double none) {
+    if (column != null) {
+      for (int i = 0; i < length; i++) {
+        if (column[i] != none) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Allocates a column filled with the given default on first use.
+  private static double[] column(double[] column, int capacity, double none) {
+    if (column == null) {
+      column = new double[capacity];
+      Arrays.fill(column, none);
+    }
+    return column;
+  }
+
+  private static double dividendOf(Double value) {
+    return value == null || !(value > 0) ? NO_DIVIDEND : value;
+  }
+
+  private static double splitOf(Double value) {
+    return value == null || !(value > 0) ? NO_SPLIT : value;
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length "
+          + length);
+    }
+    return index;
+  }
+
+  private static double unbox(Double value) {
+    return value == null ? Double.NaN : value;
+  }
+
+  private static Double box(double value) {
+    return Double.isNaN(value) ? null : value;
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  /**
+   * Appends candles into growable primitive columns. Rows may arrive in ascending or descending
+   * date order (providers differ); {@link #build()} always returns an ascending series, reversing
+   * descending input in place instead of sorting it.
+   */
+  public static final class Builder {
+
+    private int[] days;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] dividend;
+    private double[] split;
+    private int size;
+    private boolean ascending = true;
+    private boolean descending = true;
+
+    private Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 16);
+      days = new int[capacity];
+      open = new double[capacity];
+      high = new double[capacity];
+      low = new double[capacity];
+      close = new double[capacity];
+    }
+
+    public Builder add(long epochDay, double open, double high, double low, double close) {
+      return add(epochDay, open, high, low, close, NO_DIVIDEND, NO_SPLIT);
+    }
+
+    // Adds a day with its corporate actions; a NaN or non-positive dividend or split is none.
+    public Builder add(long epochDay, double open, double high, double low, double close,
+        double dividend, double split) {
+      if (size == days.length) {
+        grow();
+      }
+      if (size > 0) {
+        ascending &= days[size - 1] < epochDay;
+        descending &= days[size - 1] > epochDay;
+      }
+      this.days[size] = (int) epochDay;
+      this.open[size] = open;
+      this.high[size] = high;
+      this.low[size] = low;
+      this.close[size] = close;
+      double cash = dividend > 0 ? dividend : NO_DIVIDEND;
+      if (cash != NO_DIVIDEND || this.dividend != null) {
+        this.dividend = column(this.dividend, days.length, NO_DIVIDEND);
+        this.dividend[size] = cash;
+      }
+      double factor = split > 0 ? split : NO_SPLIT;
+      if (factor != NO_SPLIT || this.split != null) {
+        this.split = column(this.split, days.length, NO_SPLIT);
+        this.split[size] = factor;
+      }
+      size++;
+      return this;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns true while every row so far has been older than the one before it.
+     */
+    public boolean isDescending() {
+      return size > 1 && descending;
+    }
+
+    public CandleSeries build() {
+      if (size > 1 && !ascending) {
+        if (descending) {
+          reverse();
+        } else {
+          sort();
+        }
+      }
+      return new CandleSeries(days, open, high, low, close, dividend, split, 0, size);
+    }
+
+    private void grow() {
+      int capacity = days.length * 2;
+      days = Arrays.copyOf(days, capacity);
+      open = Arrays.copyOf(open, capacity);
+      high = Arrays.copyOf(high, capacity);
+      low = Arrays.copyOf(low, capacity);
+      close = Arrays.copyOf(close, capacity);
+      if (dividend != null) {
+        dividend = Arrays.copyOf(dividend, capacity);
+      }
+      if (split != null) {
+        split = Arrays.copyOf(split, capacity);
+      }
+    }
+
+    private void reverse() {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        swap(i, j);
+      }
+    }
+
+    private void sort() {
+      // Fallback for providers that do not return dates in order: sort (day, row) pairs packed
+      // into longs, then permute every column once.
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = ((long) days[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+      int[] sortedDays = new int[days.length];
+      double[] sortedOpen = new double[days.length];
+      double[] sortedHigh = new double[days.length];
+      double[] sortedLow = new double[days.length];
+      double[] sortedClose = new double[days.length];
+      for (int i = 0; i < size; i++) {
+        int row = (int) keys[i];
+        sortedDays[i] = days[row];
+        sortedOpen[i] = open[row];
+        sortedHigh[i] = high[row];
+        sortedLow[i] = low[row];
+        sortedClose[i] = close[row];
+      }
+      days = sortedDays;
+      open = sortedOpen;
+      high = sortedHigh;
+      low = sortedLow;
+      close = sortedClose;
+      dividend = permute(dividend, keys);
+      split = permute(split, keys);
+    }
+
+    private double[] permute(double[] column, long[] keys) {
+      if (column == null) {
+        return null;
+      }
+      double[] sorted = new double[column.length];
+      for (int i = 0; i < size; i++) {
+        sorted[i] = column[(int) keys[i]];
+      }
+      return sorted;
+    }
+
+    private void swap(int i, int j) {
+      int day = days[i];
+      days[i] = days[j];
+      days[j] = day;
+      swap(open, i, j);
+      swap(high, i, j);
+      swap(low, i, j);
+      swap(close, i, j);
+      swap(dividend, i, j);
+      swap(split, i, j);
+    }
+
+    private static void swap(double[] column, int i, int j) {
+      if (column == null) {
+        return;
+      }
+      double value = column[i];
+      column[i] = column[j];
+      column[j] = value;
+    }
+  }
+
+  private static final class CandleList extends AbstractList<Candle> implements RandomAccess {
+
+    private final CandleSeries series;
+
+    CandleList(CandleSeries series) {
+      this.series = series;
+    }
+
+    @Override
+    public Candle get(int index) {
+      return new SeriesCandle(series, series.checkIndex(index));
+    }
+
+    @Override
+    public int size() {
+      return series.length;
+    }
+  }
+
+  private static final class SeriesCandle implements Candle {
+
+    private final CandleSeries series;
+    private final int index;
+
+    SeriesCandle(CandleSeries series, int index) {
+      this.series = series;
+      this.index = index;
+    }
+
+    @Override
+    public Double getOpen() {
+      return box(series.getOpen(index));
+    }
+
+    @Override
+    public Double getClose() {
+      return box(series.getClose(index));
+    }
+
+    @Override
+    public Double getHigh() {
+      return box(series.getHigh(index));
+    }
+
+    @Override
+    public Double getLow() {
+      return box(series.getLow(index));
+    }
+
+    @Override
+    public LocalDate getDate() {
+      return series.getDate(index);
+    }
+
+    @Override
+    public Double getDividend() {
+      return series.dividend == null ? null : series.getDividend(index);
+    }
+
+    @Override
+    public Double getSplitFactor() {
+      return series.split == null ? null : series.getSplitFactor(index);
+    }
+
+    @Override
+    public String toString() {
+      return "Candle{open=" + getOpen() + ", close=" + getClose() + ", high=" + getHigh()
+          + ", low=" + getLow() + ", date=" + getDate() + '}';
+    }
+  }
+}
@@ -0,0 +1,64 @@
+
+package com.crio.warmup.stock.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Inclusive range of trading days requested for one symbol.
+public final class DateRange {
+
+  private final LocalDate from;
+  private final LocalDate to;
+
+  private DateRange(LocalDate from, LocalDate to) {
+    this.from = from;
+    this.to = to;
+  }
+
+  public static DateRange of(LocalDate from, LocalDate to) {
+    return new DateRange(Objects.requireNonNull(from), Objects.requireNonNull(to));
+  }
+
+  public LocalDate getFrom() {
+    return from;
+  }
+
+  public LocalDate getTo() {
+    return to;
+  }
+
+  public boolean contains(LocalDate from, LocalDate to) {
+    return !from.isBefore(this.from) && !to.isAfter(this.to);
+  }
+
+  // Smallest range covering both this one and [from, to].
+  public DateRange union(LocalDate from, LocalDate to) {
+    if (contains(from, to)) {
+      return this;
+    }
+    return new DateRange(from.isBefore(this.from) ? from : this.from,
+        to.isAfter(this.to) ? to : this.to);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof DateRange)) {
+      return false;
+    }
+    DateRange range = (DateRange) other;
+    return from.equals(range.from) && to.equals(range.to);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(from, to);
+  }
+
+  @Override
+  public String toString() {
+    return from + ".." + to;
+  }
+}
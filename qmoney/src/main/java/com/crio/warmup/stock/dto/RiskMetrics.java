@@ -0,0 +1,97 @@
+
+package com.crio.warmup.stock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Risk of holding a symbol over a candle series: annualized volatility of daily returns, maximum
+ * drawdown, and Sharpe and Sortino ratios against an annual risk-free rate.
+ *
+ * <p>Daily returns run from the first open to the first close, then close to close, matching a
+ * position bought at the open of the first candle. Everything is gathered in one pass with O(1)
+ * state (Welford's running mean and variance, the downside sum of squares and the running peak),
+ * and annualized over {@link #TRADING_DAYS} days a year. Ratios that are undefined, e.g. for a
+ * single day or a series with no day below the risk-free rate, are null.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class RiskMetrics {
+
+  public static final int TRADING_DAYS = 252;
+
+  private final int days;
+  private final Double volatility;
+  private final double maxDrawdown;
+  private final Double sharpeRatio;
+  private final Double sortinoRatio;
+
+  private RiskMetrics(int days, Double volatility, double maxDrawdown, Double sharpeRatio,
+      Double sortinoRatio) {
+    this.days = days;
+    this.volatility = volatility;
+    this.maxDrawdown = maxDrawdown;
+    this.sharpeRatio = sharpeRatio;
+    this.sortinoRatio = sortinoRatio;
+  }
+
+  public static RiskMetrics of(CandleSeries candles, double riskFreeRate) {
+    return of(candles, riskFreeRate, false);
+  }
+
+  // When adjusted is true, each close is adjusted to the first day's shares, so splits and
+  // ex-dividend gaps are not counted as losses.
+  public static RiskMetrics of(CandleSeries candles, double riskFreeRate, boolean adjusted) {
+    double dailyRiskFree = riskFreeRate / TRADING_DAYS;
+    int count = 0;
+    double mean = 0;
+    double squaredDeviations = 0;
+    double downsideSquares = 0;
+    double maxDrawdown = 0;
+    double previous = candles.isEmpty() ? 0 : candles.getOpen(0);
+    double peak = previous;
+    for (int i = 0; i < candles.size(); i++) {
+      double close = adjusted ? candles.getClose(i) * candles.getAdjustment(0, i)
+          : candles.getClose(i);
+      double dailyReturn = close / previous - 1;
+      count++;
+      double delta = dailyReturn - mean;
+      mean += delta / count;
+      squaredDeviations += delta * (dailyReturn - mean);
+      double shortfall = Math.min(0, dailyReturn - dailyRiskFree);
+      downsideSquares += shortfall * shortfall;
+      peak = Math.max(peak, close);
+      maxDrawdown = Math.max(maxDrawdown, 1 - close / peak);
+      previous = close;
+    }
+
+    double annualization = Math.sqrt(TRADING_DAYS);
+    double deviation = count > 1 ? Math.sqrt(squaredDeviations / (count - 1)) : 0;
+    double downsideDeviation = count > 0 ? Math.sqrt(downsideSquares / count) : 0;
+    double excess = mean - dailyRiskFree;
+    return new RiskMetrics(count,
+        count > 1 ? deviation * annualization : null,
+        maxDrawdown,
+        deviation > 0 ? excess / deviation * annualization : null,
+        downsideDeviation > 0 ? excess / downsideDeviation * annualization : null);
+  }
+
+  public int getDays() {
+    return days;
+  }
+
+  public Double getVolatility() {
+    return volatility;
+  }
+
+  // Largest fall from a running closing peak, as a fraction of the peak.
+  public double getMaxDrawdown() {
+    return maxDrawdown;
+  }
+
+  public Double getSharpeRatio() {
+    return sharpeRatio;
+  }
+
+  public Double getSortinoRatio() {
+    return sortinoRatio;
+  }
+}
@@ -1,6 +1,7 @@
 
 package com.crio.warmup.stock.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDate;
 
@@ -12,6 +13,10 @@ public class TiingoCandle implements Candle {
   private Double high;
   private Double low;
   private LocalDate date;
+  private Double adjOpen;
+  private Double adjClose;
+  private Double divCash;
+  private Double splitFactor;
 
   @Override
   public Double getOpen() {
@@ -58,6 +63,45 @@ public class TiingoCandle implements Candle {
     this.date = timeStamp;
   }
 
+  public Double getAdjOpen() {
+    return adjOpen;
+  }
+
+  public void setAdjOpen(Double adjOpen) {
+    this.adjOpen = adjOpen;
+  }
+
+  public Double getAdjClose() {
+    return adjClose;
+  }
+
+  public void setAdjClose(Double adjClose) {
+    this.adjClose = adjClose;
+  }
+
+  public Double getDivCash() {
+    return divCash;
+  }
+
+  public void setDivCash(Double divCash) {
+    this.divCash = divCash;
+  }
+
+  @JsonIgnore
+  @Override
+  public Double getDividend() {
+    return divCash;
+  }
+
+  @Override
+  public Double getSplitFactor() {
+    return splitFactor;
+  }
+
+  public void setSplitFactor(Double splitFactor) {
+    this.splitFactor = splitFactor;
+  }
+
   @Override
   public String toString() {
     return "TiingoCandle{"
@@ -66,6 +110,8 @@ public class TiingoCandle implements Candle {
             + ", high=" + high
             + ", low=" + low
             + ", date=" + date
+            + ", divCash=" + divCash
+            + ", splitFactor=" + splitFactor
             + '}';
   }
 }
@@ -0,0 +1,14 @@
+package com.crio.warmup.stock.exception;
+
+// Thrown when a provider rejects a request because its quota is exhausted (HTTP 429 or an
+// Alphavantage "Information"/"Note" payload). The request itself was valid and can be retried.
+public class StockQuoteThrottledException extends StockQuoteServiceException {
+
+  public StockQuoteThrottledException(String message) {
+    super(message);
+  }
+
+  public StockQuoteThrottledException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
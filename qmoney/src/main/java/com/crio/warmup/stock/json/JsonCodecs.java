@@ -0,0 +1,100 @@
+
+package com.crio.warmup.stock.json;
+
+import com.crio.warmup.stock.dto.AlphavantageDailyResponse;
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.List;
+
+/**
+ * Pre-configured Jackson codecs shared by the application and the quote services.
+ *
+ * <p>The mapper is built once with the JavaTimeModule registered, and readers/writers for the
+ * types we exchange are resolved up front. All of them are immutable and thread-safe, so one
+ * instance can be shared by every thread; Jackson's serializer and deserializer caches then warm
+ * up once instead of per call.
+ */
+public final class JsonCodecs {
+
+  private static final JsonCodecs DEFAULT = new JsonCodecs();
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader tiingoCandlesReader;
+  private final ObjectReader alphavantageResponseReader;
+  private final ObjectReader portfolioTradesReader;
+  private final ObjectReader portfolioTradeReader;
+  private final ObjectWriter annualizedReturnWriter;
+  private final ObjectWriter annualizedReturnsWriter;
+  private final ObjectWriter writer;
+
+  public JsonCodecs() {
+    this(newObjectMapper());
+  }
+
+  public JsonCodecs(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.tiingoCandlesReader = objectMapper.readerFor(TiingoCandle[].class);
+    this.alphavantageResponseReader = objectMapper.readerFor(AlphavantageDailyResponse.class);
+    this.portfolioTradesReader = objectMapper.readerFor(PortfolioTrade[].class);
+    this.portfolioTradeReader = objectMapper.readerFor(PortfolioTrade.class);
+    this.annualizedReturnWriter = objectMapper.writerFor(AnnualizedReturn.class);
+    this.annualizedReturnsWriter =
+        objectMapper.writerFor(new TypeReference<List<AnnualizedReturn>>() {});
+    this.writer = objectMapper.writer();
+  }
+
+  public static JsonCodecs getDefault() {
+    return DEFAULT;
+  }
+
+  public static ObjectMapper newObjectMapper() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(new JavaTimeModule());
+    return objectMapper;
+  }
+
+  // Shared mapper; configure a separate JsonCodecs instead of mutating this one.
+  public ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  public JsonFactory getJsonFactory() {
+    return objectMapper.getFactory();
+  }
+
+  public ObjectReader tiingoCandlesReader() {
+    return tiingoCandlesReader;
+  }
+
+  public ObjectReader alphavantageResponseReader() {
+    return alphavantageResponseReader;
+  }
+
+  public ObjectReader portfolioTradesReader() {
+    return portfolioTradesReader;
+  }
+
+  // Single trade; see PortfolioTradeReader for streaming a whole trades file.
+  public ObjectReader portfolioTradeReader() {
+    return portfolioTradeReader;
+  }
+
+  public ObjectWriter annualizedReturnWriter() {
+    return annualizedReturnWriter;
+  }
+
+  public ObjectWriter annualizedReturnsWriter() {
+    return annualizedReturnsWriter;
+  }
+
+  public ObjectWriter writer() {
+    return writer;
+  }
+}
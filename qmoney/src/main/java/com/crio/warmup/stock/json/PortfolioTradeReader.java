@@ -0,0 +1,96 @@
+
+package com.crio.warmup.stock.json;
+
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.fasterxml.jackson.databind.MappingIterator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams trades out of a trades file one at a time.
+ *
+ * <p>Accepts the usual top-level JSON array as well as newline-delimited trade objects. Only the
+ * trade being read is bound, so a book of millions of trades can be fed to the manager in chunks
+ * without first holding all of it in memory. Closing the reader closes the underlying stream.
+ */
+public final class PortfolioTradeReader implements Iterator<PortfolioTrade>, AutoCloseable {
+
+  private final MappingIterator<PortfolioTrade> trades;
+
+  private PortfolioTradeReader(MappingIterator<PortfolioTrade> trades) {
+    this.trades = trades;
+  }
+
+  public static PortfolioTradeReader open(Path path) throws IOException {
+    return open(Files.newInputStream(path));
+  }
+
+  public static PortfolioTradeReader open(InputStream in) throws IOException {
+    return open(in, JsonCodecs.getDefault());
+  }
+
+  public static PortfolioTradeReader open(InputStream in, JsonCodecs jsonCodecs)
+      throws IOException {
+    // The reader owns the parser it creates here, so a root array is iterated element by element
+    // and the stream is closed with the iterator.
+    return new PortfolioTradeReader(jsonCodecs.portfolioTradeReader().readValues(in));
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      return trades.hasNextValue();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public PortfolioTrade next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    try {
+      return trades.nextValue();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads up to {@code maxTrades} further trades; the list is empty once the input is exhausted.
+   */
+  public List<PortfolioTrade> nextChunk(int maxTrades) throws IOException {
+    List<PortfolioTrade> chunk = new ArrayList<>(Math.min(maxTrades, 1024));
+    while (chunk.size() < maxTrades && trades.hasNextValue()) {
+      chunk.add(trades.nextValue());
+    }
+    return chunk;
+  }
+
+  // Lazy, sequential stream over the remaining trades; closing it closes this reader.
+  public Stream<PortfolioTrade> stream() {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+        Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+  }
+
+  @Override
+  public void close() {
+    try {
+      trades.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonically increasing count, e.g. requests served or bytes downloaded.
+public final class Counter extends Metric {
+
+  private final LongAdder value = new LongAdder();
+
+  Counter(String name, String help, Map<String, String> labels) {
+    super(name, help, labels);
+  }
+
+  public void increment() {
+    value.increment();
+  }
+
+  public void increment(long amount) {
+    value.add(amount);
+  }
+
+  public long get() {
+    return value.sum();
+  }
+
+  @Override
+  public Type getType() {
+    return Type.COUNTER;
+  }
+
+  @Override
+  public void collect(SampleConsumer consumer) {
+    consumer.accept(getName(), getLabels(), get());
+  }
+}
@@ -0,0 +1,41 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Current level that goes up and down, e.g. requests in flight.
+public final class Gauge extends Metric {
+
+  private final AtomicLong value = new AtomicLong();
+
+  Gauge(String name, String help, Map<String, String> labels) {
+    super(name, help, labels);
+  }
+
+  public void increment() {
+    value.incrementAndGet();
+  }
+
+  public void decrement() {
+    value.decrementAndGet();
+  }
+
+  public void set(long newValue) {
+    value.set(newValue);
+  }
+
+  public long get() {
+    return value.get();
+  }
+
+  @Override
+  public Type getType() {
+    return Type.GAUGE;
+  }
+
+  @Override
+  public void collect(SampleConsumer consumer) {
+    consumer.accept(getName(), getLabels(), get());
+  }
+}
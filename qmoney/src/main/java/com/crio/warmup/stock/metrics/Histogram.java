@@ -0,0 +1,76 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of observed values over fixed buckets, exported the Prometheus way: cumulative
+ * {@code _bucket} counts per upper bound, plus {@code _sum} and {@code _count}.
+ */
+public final class Histogram extends Metric {
+
+  // Latency buckets in seconds, from 100 microseconds to 30 seconds.
+  public static final double[] SECONDS_BUCKETS = {0.0001, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+      0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+  private final double[] bounds;
+  // One slot per bound plus the +Inf bucket; counts are per bucket, not cumulative.
+  private final LongAdder[] counts;
+  private final DoubleAdder sum = new DoubleAdder();
+
+  Histogram(String name, String help, Map<String, String> labels, double[] bounds) {
+    super(name, help, labels);
+    this.bounds = bounds.clone();
+    this.counts = new LongAdder[bounds.length + 1];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void observe(double value) {
+    int bucket = 0;
+    while (bucket < bounds.length && value > bounds[bucket]) {
+      bucket++;
+    }
+    counts[bucket].increment();
+    sum.add(value);
+  }
+
+  // Records an elapsed System#nanoTime interval in seconds.
+  public void observeNanos(long nanos) {
+    observe(nanos / 1e9);
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : counts) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public double getSum() {
+    return sum.sum();
+  }
+
+  @Override
+  public Type getType() {
+    return Type.HISTOGRAM;
+  }
+
+  @Override
+  public void collect(SampleConsumer consumer) {
+    long cumulative = 0;
+    for (int i = 0; i <= bounds.length; i++) {
+      cumulative += counts[i].sum();
+      Map<String, String> labels = new LinkedHashMap<>(getLabels());
+      labels.put("le", i < bounds.length ? Double.toString(bounds[i]) : "+Inf");
+      consumer.accept(getName() + "_bucket", labels, cumulative);
+    }
+    consumer.accept(getName() + "_sum", getLabels(), getSum());
+    consumer.accept(getName() + "_count", getLabels(), cumulative);
+  }
+}
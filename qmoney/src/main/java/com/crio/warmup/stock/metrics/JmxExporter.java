@@ -0,0 +1,124 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Publishes a {@link MetricsRegistry} as one read-only MBean, so the metrics can be watched from
+ * JConsole or VisualVM without a scrape endpoint.
+ *
+ * <p>Every exported sample becomes a {@code Double} attribute named like its Prometheus series,
+ * e.g. {@code qmoney_quote_fetch_seconds_count{provider="tiingo"}}. Attributes are read from the
+ * registry on access, so metrics registered later show up on the next refresh.
+ */
+public final class JmxExporter implements DynamicMBean {
+
+  public static final String DEFAULT_OBJECT_NAME = "com.crio.warmup.stock:type=Metrics";
+
+  private final MetricsRegistry registry;
+
+  public JmxExporter(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  // Registers the registry under DEFAULT_OBJECT_NAME; registering it twice is a no-op.
+  public static void register(MetricsRegistry registry) throws JMException {
+    register(registry, ManagementFactory.getPlatformMBeanServer(),
+        new ObjectName(DEFAULT_OBJECT_NAME));
+  }
+
+  public static void register(MetricsRegistry registry, MBeanServer server, ObjectName name)
+      throws JMException {
+    try {
+      server.registerMBean(new JmxExporter(registry), name);
+    } catch (InstanceAlreadyExistsException e) {
+      // Already published.
+    }
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    Double value = samples().get(attribute);
+    if (value == null) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return value;
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    Map<String, Double> samples = samples();
+    AttributeList list = new AttributeList();
+    for (String attribute : attributes) {
+      Double value = samples.get(attribute);
+      if (value != null) {
+        list.add(new Attribute(attribute, value));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature)
+      throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    Map<String, Double> samples = samples();
+    MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[samples.size()];
+    int i = 0;
+    for (String name : samples.keySet()) {
+      attributes[i++] = new MBeanAttributeInfo(name, Double.class.getName(), name, true, false,
+          false);
+    }
+    return new MBeanInfo(JmxExporter.class.getName(), "qmoney metrics", attributes, null, null,
+        null);
+  }
+
+  private Map<String, Double> samples() {
+    Map<String, Double> samples = new LinkedHashMap<>();
+    for (Metric metric : registry.getMetrics()) {
+      metric.collect((name, labels, value) -> samples.put(seriesName(name, labels), value));
+    }
+    return samples;
+  }
+
+  private static String seriesName(String name, Map<String, String> labels) {
+    if (labels.isEmpty()) {
+      return name;
+    }
+    StringBuilder series = new StringBuilder(name).append('{');
+    String separator = "";
+    for (Map.Entry<String, String> label : labels.entrySet()) {
+      series.append(separator).append(label.getKey()).append("=\"").append(label.getValue())
+          .append('"');
+      separator = ",";
+    }
+    return series.append('}').toString();
+  }
+}
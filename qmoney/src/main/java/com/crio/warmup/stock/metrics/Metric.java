@@ -0,0 +1,49 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.util.Map;
+
+/**
+ * One labelled time series (or, for histograms, one family of series) held by a
+ * {@link MetricsRegistry}. Updates are lock-free and safe from any thread.
+ */
+public abstract class Metric {
+
+  public enum Type {
+    COUNTER,
+    GAUGE,
+    HISTOGRAM
+  }
+
+  // Receives the exported samples of a metric, e.g. name_bucket, name_sum and name_count.
+  @FunctionalInterface
+  public interface SampleConsumer {
+    void accept(String name, Map<String, String> labels, double value);
+  }
+
+  private final String name;
+  private final String help;
+  private final Map<String, String> labels;
+
+  Metric(String name, String help, Map<String, String> labels) {
+    this.name = name;
+    this.help = help;
+    this.labels = labels;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getHelp() {
+    return help;
+  }
+
+  public Map<String, String> getLabels() {
+    return labels;
+  }
+
+  public abstract Type getType();
+
+  public abstract void collect(SampleConsumer consumer);
+}
@@ -0,0 +1,81 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Holds the application's metrics, keyed by name and labels.
+ *
+ * <p>Instrumented code looks its metrics up once (usually into a field) and updates them on the
+ * hot path without locking; exporters such as {@link PrometheusExporter} and
+ * {@link JmxExporter} read the registry when scraped. Labels are given as alternating name/value
+ * pairs, e.g. {@code counter("qmoney_quote_throttled_total", help, "provider", "tiingo")}.
+ */
+public final class MetricsRegistry {
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+  // Process-wide registry used by the quote services and the portfolio manager.
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  public Counter counter(String name, String help, String... labels) {
+    return register(Counter.class, name, labels,
+        labelMap -> new Counter(name, help, labelMap));
+  }
+
+  public Gauge gauge(String name, String help, String... labels) {
+    return register(Gauge.class, name, labels, labelMap -> new Gauge(name, help, labelMap));
+  }
+
+  // Latency histogram with the Histogram#SECONDS_BUCKETS bounds.
+  public Histogram histogram(String name, String help, String... labels) {
+    return histogram(name, help, Histogram.SECONDS_BUCKETS, labels);
+  }
+
+  public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+    return register(Histogram.class, name, labels,
+        labelMap -> new Histogram(name, help, labelMap, bounds));
+  }
+
+  // Every registered metric, ordered by name and then by labels.
+  public List<Metric> getMetrics() {
+    List<Metric> snapshot = new ArrayList<>(metrics.values());
+    snapshot.sort(Comparator.comparing(Metric::getName)
+        .thenComparing(metric -> metric.getLabels().toString()));
+    return snapshot;
+  }
+
+  private <M extends Metric> M register(Class<M> type, String name, String[] labels,
+      Function<Map<String, String>, M> factory) {
+    Map<String, String> labelMap = toLabelMap(labels);
+    Metric metric = metrics.computeIfAbsent(name + labelMap, key -> factory.apply(labelMap));
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException(
+          name + " is already registered as a " + metric.getType().name().toLowerCase());
+    }
+    return type.cast(metric);
+  }
+
+  private static Map<String, String> toLabelMap(String[] labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("labels must be name/value pairs");
+    }
+    Map<String, String> labelMap = new LinkedHashMap<>();
+    for (int i = 0; i < labels.length; i += 2) {
+      labelMap.put(labels[i], labels[i + 1]);
+    }
+    return Collections.unmodifiableMap(labelMap);
+  }
+}
@@ -0,0 +1,85 @@
+
+package com.crio.warmup.stock.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Renders a {@link MetricsRegistry} in the Prometheus text exposition format (version 0.0.4),
+ * ready to be served from a scrape endpoint or written to a node-exporter textfile.
+ */
+public final class PrometheusExporter {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final MetricsRegistry registry;
+
+  public PrometheusExporter(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  public String scrape() {
+    StringWriter out = new StringWriter();
+    try {
+      write(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  public void write(Writer out) throws IOException {
+    String family = null;
+    for (Metric metric : registry.getMetrics()) {
+      if (!metric.getName().equals(family)) {
+        family = metric.getName();
+        out.write("# HELP " + family + " " + escapeHelp(metric.getHelp()) + "\n");
+        out.write("# TYPE " + family + " " + metric.getType().name().toLowerCase() + "\n");
+      }
+      StringBuilder samples = new StringBuilder();
+      metric.collect((name, labels, value) -> appendSample(samples, name, labels, value));
+      out.write(samples.toString());
+    }
+  }
+
+  private static void appendSample(StringBuilder out, String name, Map<String, String> labels,
+      double value) {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{');
+      String separator = "";
+      for (Map.Entry<String, String> label : labels.entrySet()) {
+        out.append(separator).append(label.getKey()).append("=\"")
+            .append(escapeLabelValue(label.getValue())).append('"');
+        separator = ",";
+      }
+      out.append('}');
+    }
+    out.append(' ').append(formatValue(value)).append('\n');
+  }
+
+  private static String formatValue(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    }
+    if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    }
+    // Counts and gauges print without a trailing ".0".
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  private static String escapeHelp(String help) {
+    return help.replace("\\", "\\\\").replace("\n", "\\n");
+  }
+
+  private static String escapeLabelValue(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
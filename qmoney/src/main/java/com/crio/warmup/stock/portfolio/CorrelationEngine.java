@@ -0,0 +1,231 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.QuoteSnapshot;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes a {@link CorrelationMatrix} of daily log returns for many symbols.
+ *
+ * <p>The series are first aligned on the union of their trading days in the range. A symbol
+ * without a candle on one of those days keeps its previous close (its first close before its
+ * first candle), so it has a zero return there. Series that start late or have gaps therefore
+ * show slightly less variance; a range every symbol covers gives exact figures. Each symbol's
+ * returns, split- and dividend-adjusted if the engine was created with adjusted set, are then
+ * centred into one primitive row.
+ *
+ * <p>The matrix is split into tiles of {@link #TILE} x {@link #TILE} symbols, and only tiles on
+ * or above the diagonal are computed. Each tile is a fork/join leaf. It walks the days in blocks
+ * of {@link #DAY_BLOCK}, so both tiles' rows for a block stay in cache while every pair in the
+ * tile is accumulated from them. The dot products run on {@link ReturnKernels}.
+ */
+public class CorrelationEngine {
+
+  static final int TILE = 64;
+  static final int DAY_BLOCK = 512;
+
+  private final StockQuotesService stockQuotesService;
+  private final ForkJoinPool pool;
+  private final ReturnKernels kernels;
+  private final Executor fetchExecutor;
+  private final int fetchParallelism;
+  private final boolean adjusted;
+
+  public CorrelationEngine(StockQuotesService stockQuotesService) {
+    this(stockQuotesService, ForkJoinPool.commonPool(), ReturnKernels.getDefault());
+  }
+
+  public CorrelationEngine(StockQuotesService stockQuotesService, ForkJoinPool pool,
+      ReturnKernels kernels) {
+    this(stockQuotesService, pool, kernels, null, 1, false);
+  }
+
+  // Fetches the candles with up to fetchParallelism calls in flight on fetchExecutor.
+  public CorrelationEngine(StockQuotesService stockQuotesService, ForkJoinPool pool,
+      ReturnKernels kernels, Executor fetchExecutor, int fetchParallelism) {
+    this(stockQuotesService, pool, kernels, fetchExecutor, fetchParallelism, false);
+  }
+
+  public CorrelationEngine(StockQuotesService stockQuotesService, ForkJoinPool pool,
+      ReturnKernels kernels, Executor fetchExecutor, int fetchParallelism, boolean adjusted) {
+    this.stockQuotesService = stockQuotesService;
+    this.pool = pool;
+    this.kernels = kernels;
+    this.fetchExecutor = fetchExecutor;
+    this.fetchParallelism = fetchParallelism;
+    this.adjusted = adjusted;
+  }
+
+  // Fetches every symbol's candles for [from, to] in one batch and correlates them.
+  public CorrelationMatrix compute(Collection<String> symbols, LocalDate from, LocalDate to)
+      throws StockQuoteServiceException {
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      requests.put(symbol, DateRange.of(from, to));
+    }
+    QuoteSnapshot snapshot;
+    try {
+      snapshot = QuoteSnapshot.load(stockQuotesService, requests, fetchExecutor,
+          fetchParallelism);
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    return compute(snapshot, requests.keySet(), from, to);
+  }
+
+  // Correlates already loaded candles; no provider calls are made.
+  public CorrelationMatrix compute(QuoteSnapshot snapshot, Collection<String> symbols,
+      LocalDate from, LocalDate to) {
+    List<String> names = new ArrayList<>(new LinkedHashSet<>(symbols));
+    List<CandleSeries> series = new ArrayList<>(names.size());
+    for (String symbol : names) {
+      series.add(snapshot.get(symbol).slice(from, to));
+    }
+    int[] axis = alignedDays(series, from, to);
+    int observations = Math.max(0, axis.length - 1);
+    double[][] rows = new double[names.size()][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = centredReturns(series.get(i), axis);
+    }
+
+    int size = names.size();
+    double[] covariances = new double[size * (size + 1) / 2];
+    int tiles = (size + TILE - 1) / TILE;
+    int[] tileRows = new int[tiles * (tiles + 1) / 2];
+    int[] tileColumns = new int[tileRows.length];
+    for (int row = 0, pair = 0; row < tiles; row++) {
+      for (int column = row; column < tiles; column++, pair++) {
+        tileRows[pair] = row;
+        tileColumns[pair] = column;
+      }
+    }
+    if (observations > 1 && tileRows.length > 0) {
+      pool.invoke(new TileTask(rows, observations, tileRows, tileColumns, covariances, 0,
+          tileRows.length));
+    }
+    return new CorrelationMatrix(names, observations, covariances);
+  }
+
+  // Sorted union of the series' trading days.
+  private static int[] alignedDays(List<CandleSeries> series, LocalDate from, LocalDate to) {
+    int first = (int) from.toEpochDay();
+    boolean[] traded = new boolean[Math.max(0, (int) (to.toEpochDay() - first) + 1)];
+    int count = 0;
+    for (CandleSeries candles : series) {
+      for (int i = 0; i < candles.size(); i++) {
+        int offset = candles.getEpochDay(i) - first;
+        if (!traded[offset]) {
+          traded[offset] = true;
+          count++;
+        }
+      }
+    }
+    int[] axis = new int[count];
+    for (int offset = 0, i = 0; offset < traded.length; offset++) {
+      if (traded[offset]) {
+        axis[i++] = first + offset;
+      }
+    }
+    return axis;
+  }
+
+  private double[] centredReturns(CandleSeries candles, int[] axis) {
+    double[] closes = new double[axis.length];
+    if (!candles.isEmpty()) {
+      double close = candles.getClose(0);
+      for (int day = 0, i = 0; day < axis.length; day++) {
+        if (i < candles.size() && candles.getEpochDay(i) == axis[day]) {
+          close = adjusted ? candles.getClose(i) * candles.getAdjustment(0, i)
+              : candles.getClose(i);
+          i++;
+        }
+        closes[day] = close;
+      }
+    } else {
+      Arrays.fill(closes, 1);
+    }
+    int observations = Math.max(0, axis.length - 1);
+    double[] returns = new double[observations];
+    kernels.logReturns(closes, axis.length, returns);
+    double mean = observations > 0 ? kernels.mean(returns, observations) : 0;
+    for (int i = 0; i < observations; i++) {
+      returns[i] -= mean;
+    }
+    return returns;
+  }
+
+  private final class TileTask extends RecursiveAction {
+
+    private final double[][] rows;
+    private final int observations;
+    private final int[] tileRows;
+    private final int[] tileColumns;
+    private final double[] covariances;
+    private final int from;
+    private final int to;
+
+    TileTask(double[][] rows, int observations, int[] tileRows, int[] tileColumns,
+        double[] covariances, int from, int to) {
+      this.rows = rows;
+      this.observations = observations;
+      this.tileRows = tileRows;
+      this.tileColumns = tileColumns;
+      this.covariances = covariances;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        computeTile(tileRows[from] * TILE, tileColumns[from] * TILE);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new TileTask(rows, observations, tileRows, tileColumns, covariances, from,
+          middle), new TileTask(rows, observations, tileRows, tileColumns, covariances, middle,
+          to));
+    }
+
+    // Tiles write disjoint entries of the packed triangle, so no synchronization is needed.
+    private void computeTile(int rowStart, int columnStart) {
+      int size = rows.length;
+      int rowEnd = Math.min(size, rowStart + TILE);
+      int columnEnd = Math.min(size, columnStart + TILE);
+      int width = columnEnd - columnStart;
+      double[] sums = new double[(rowEnd - rowStart) * width];
+      for (int dayStart = 0; dayStart < observations; dayStart += DAY_BLOCK) {
+        int dayEnd = Math.min(observations, dayStart + DAY_BLOCK);
+        for (int i = rowStart; i < rowEnd; i++) {
+          double[] row = rows[i];
+          int offset = (i - rowStart) * width - columnStart;
+          for (int j = Math.max(i, columnStart); j < columnEnd; j++) {
+            sums[offset + j] += kernels.dot(row, rows[j], dayStart, dayEnd);
+          }
+        }
+      }
+      for (int i = rowStart; i < rowEnd; i++) {
+        int offset = (i - rowStart) * width - columnStart;
+        for (int j = Math.max(i, columnStart); j < columnEnd; j++) {
+          covariances[CorrelationMatrix.packedIndex(size, i, j)] =
+              sums[offset + j] / (observations - 1);
+        }
+      }
+    }
+  }
+}
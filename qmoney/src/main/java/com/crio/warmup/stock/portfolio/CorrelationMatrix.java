@@ -0,0 +1,77 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pairwise covariance and correlation of daily log returns across a set of symbols.
+ *
+ * <p>Only the covariances of the upper triangle, diagonal included, are kept, packed row by row
+ * into one {@code double[]} of n(n + 1) / 2 entries; correlations are derived from them and the
+ * diagonal variances on access. Built by {@link CorrelationEngine}.
+ */
+public final class CorrelationMatrix {
+
+  private final List<String> symbols;
+  private final Map<String, Integer> indexes;
+  private final int observations;
+  private final double[] covariances;
+
+  CorrelationMatrix(List<String> symbols, int observations, double[] covariances) {
+    this.symbols = Collections.unmodifiableList(symbols);
+    this.indexes = new HashMap<>();
+    for (int i = 0; i < symbols.size(); i++) {
+      indexes.put(symbols.get(i), i);
+    }
+    this.observations = observations;
+    this.covariances = covariances;
+  }
+
+  // Position of (row, column), row <= column, in the packed upper triangle of an n x n matrix.
+  static int packedIndex(int size, int row, int column) {
+    return row * size - row * (row - 1) / 2 + (column - row);
+  }
+
+  public List<String> getSymbols() {
+    return symbols;
+  }
+
+  public int size() {
+    return symbols.size();
+  }
+
+  // Daily returns each entry was computed from.
+  public int getObservations() {
+    return observations;
+  }
+
+  public double getCovariance(int i, int j) {
+    return i <= j ? covariances[packedIndex(size(), i, j)]
+        : covariances[packedIndex(size(), j, i)];
+  }
+
+  // NaN when either symbol's returns have no variance, e.g. a symbol without candles.
+  public double getCorrelation(int i, int j) {
+    double deviations = Math.sqrt(getCovariance(i, i) * getCovariance(j, j));
+    return deviations > 0 ? getCovariance(i, j) / deviations : Double.NaN;
+  }
+
+  public double getCovariance(String a, String b) {
+    return getCovariance(indexOf(a), indexOf(b));
+  }
+
+  public double getCorrelation(String a, String b) {
+    return getCorrelation(indexOf(a), indexOf(b));
+  }
+
+  public int indexOf(String symbol) {
+    Integer index = indexes.get(symbol);
+    if (index == null) {
+      throw new IllegalArgumentException("Symbol not in matrix: " + symbol);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,45 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Picks the default ReturnKernels once. The vector implementation is loaded reflectively, so its
+// classes are only linked when the incubator module is present.
+final class KernelSelector {
+
+  private static final Logger log = LogManager.getLogger(KernelSelector.class);
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  static final ReturnKernels VECTOR = loadVector();
+  static final ReturnKernels DEFAULT = select(System.getProperty(ReturnKernels.PROPERTY, "auto"));
+
+  private KernelSelector() {}
+
+  private static ReturnKernels loadVector() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return null;
+    }
+    try {
+      return (ReturnKernels) Class.forName(KernelSelector.class.getPackageName()
+          + ".VectorReturnKernels").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      log.warn("Vector kernels unavailable, using scalar ones: {}", e.toString());
+      return null;
+    }
+  }
+
+  private static ReturnKernels select(String choice) {
+    if ("scalar".equalsIgnoreCase(choice)) {
+      return ScalarReturnKernels.INSTANCE;
+    }
+    if (VECTOR == null) {
+      if ("vector".equalsIgnoreCase(choice)) {
+        log.warn("{}=vector needs --add-modules {}, using scalar kernels",
+            ReturnKernels.PROPERTY, VECTOR_MODULE);
+      }
+      return ScalarReturnKernels.INSTANCE;
+    }
+    return VECTOR;
+  }
+}
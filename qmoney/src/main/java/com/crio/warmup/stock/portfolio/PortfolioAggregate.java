@@ -0,0 +1,208 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.PortfolioTrade.TradeType;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Quantity-weighted returns of a whole portfolio, with BUY and SELL lots netted per symbol.
+ *
+ * <p>Every lot trades at the open of its first candle on or after its date: a BUY adds its cost
+ * and its shares' value at the close of the end date, a SELL adds its proceeds and takes its
+ * shares' end value back out. Each lot's contribution is a plain sum, so partial aggregates built
+ * by separate workers over any split of the book can be merged with {@link #combine} in any order
+ * to give the same result as a single pass. Annualization uses the cost-weighted holding period
+ * of the BUY lots.
+ *
+ * <p>An aggregate is mutable and not thread-safe; give each worker its own and combine them, as
+ * {@link #collector} does.
+ */
+public final class PortfolioAggregate {
+
+  private final Map<String, Position> positions = new HashMap<>();
+  private final boolean adjusted;
+
+  public PortfolioAggregate() {
+    this(false);
+  }
+
+  // When adjusted is true, each lot's end price is adjusted for the splits and dividends since
+  // its date; otherwise lots are priced at quoted prices.
+  public PortfolioAggregate(boolean adjusted) {
+    this.adjusted = adjusted;
+  }
+
+  // Adds one lot, priced from the candles from its date to the end date; empty series are skipped.
+  public PortfolioAggregate add(PortfolioTrade trade, CandleSeries candles) {
+    if (candles.isEmpty()) {
+      return this;
+    }
+    int last = candles.size() - 1;
+    double tradePrice = candles.getOpen(0);
+    double endPrice = candles.getClose(last);
+    if (adjusted) {
+      endPrice *= candles.getAdjustment(0, last);
+    }
+    long quantity = trade.getQuantity();
+    Position position = positions.computeIfAbsent(trade.getSymbol(), Position::new);
+    if (trade.getTradeType() == TradeType.SELL) {
+      position.netQuantity -= quantity;
+      position.proceeds += quantity * tradePrice;
+      position.marketValue -= quantity * endPrice;
+    } else {
+      double cost = quantity * tradePrice;
+      double years =
+          ChronoUnit.DAYS.between(trade.getPurchaseDate(), candles.getDate(last)) / 365d;
+      position.netQuantity += quantity;
+      position.invested += cost;
+      position.marketValue += quantity * endPrice;
+      position.costYears += cost * years;
+    }
+    return this;
+  }
+
+  // Merges other into this aggregate and returns this one.
+  public PortfolioAggregate combine(PortfolioAggregate other) {
+    for (Position position : other.positions.values()) {
+      positions.computeIfAbsent(position.symbol, Position::new).merge(position);
+    }
+    return this;
+  }
+
+  /**
+   * Collects trades into an aggregate, looking up each trade's candles in {@code quotes} (full
+   * series per symbol, sliced per lot). Safe to use with parallel streams.
+   */
+  public static Collector<PortfolioTrade, PortfolioAggregate, PortfolioAggregate> collector(
+      Function<String, CandleSeries> quotes, LocalDate endDate) {
+    return collector(quotes, endDate, false);
+  }
+
+  // Same as above, into aggregates created with the given adjusted flag.
+  public static Collector<PortfolioTrade, PortfolioAggregate, PortfolioAggregate> collector(
+      Function<String, CandleSeries> quotes, LocalDate endDate, boolean adjusted) {
+    return Collector.of(() -> new PortfolioAggregate(adjusted),
+        (aggregate, trade) -> aggregate.add(trade, quotes.apply(trade.getSymbol())
+            .slice(trade.getPurchaseDate(), endDate)),
+        PortfolioAggregate::combine,
+        Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+  }
+
+  public Map<String, Position> getPositions() {
+    return Collections.unmodifiableMap(positions);
+  }
+
+  public double getInvested() {
+    double invested = 0;
+    for (Position position : positions.values()) {
+      invested += position.invested;
+    }
+    return invested;
+  }
+
+  // Sale proceeds plus the end value of the shares still held.
+  public double getValue() {
+    double value = 0;
+    for (Position position : positions.values()) {
+      value += position.proceeds + position.marketValue;
+    }
+    return value;
+  }
+
+  public double getTotalReturn() {
+    return totalReturn(getInvested(), getValue());
+  }
+
+  public double getAnnualizedReturn() {
+    double invested = 0;
+    double costYears = 0;
+    for (Position position : positions.values()) {
+      invested += position.invested;
+      costYears += position.costYears;
+    }
+    return annualize(totalReturn(invested, getValue()), invested, costYears);
+  }
+
+  public AnnualizedReturn toAnnualizedReturn(String name) {
+    return new AnnualizedReturn(name, getAnnualizedReturn(), getTotalReturn());
+  }
+
+  private static double totalReturn(double invested, double value) {
+    return invested == 0 ? 0 : (value - invested) / invested;
+  }
+
+  private static double annualize(double totalReturn, double invested, double costYears) {
+    if (invested == 0 || costYears <= 0) {
+      return totalReturn;
+    }
+    return Math.pow(1 + totalReturn, invested / costYears) - 1;
+  }
+
+  /**
+   * Net holding of one symbol.
+   */
+  public static final class Position {
+
+    private final String symbol;
+    private long netQuantity;
+    private double invested;
+    private double proceeds;
+    private double marketValue;
+    private double costYears;
+
+    private Position(String symbol) {
+      this.symbol = symbol;
+    }
+
+    private void merge(Position other) {
+      netQuantity += other.netQuantity;
+      invested += other.invested;
+      proceeds += other.proceeds;
+      marketValue += other.marketValue;
+      costYears += other.costYears;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+
+    // Shares bought minus shares sold.
+    public long getNetQuantity() {
+      return netQuantity;
+    }
+
+    public double getInvested() {
+      return invested;
+    }
+
+    public double getProceeds() {
+      return proceeds;
+    }
+
+    // End-date value of the net quantity.
+    public double getMarketValue() {
+      return marketValue;
+    }
+
+    public double getTotalReturn() {
+      return totalReturn(invested, proceeds + marketValue);
+    }
+
+    public double getAnnualizedReturn() {
+      return annualize(getTotalReturn(), invested, costYears);
+    }
+
+    public AnnualizedReturn toAnnualizedReturn() {
+      return new AnnualizedReturn(symbol, getAnnualizedReturn(), getTotalReturn());
+    }
+  }
+}
@@ -0,0 +1,143 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.DateRange;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.QuoteSnapshot;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Values many portfolios at once against one shared {@link QuoteSnapshot}.
+ *
+ * <p>The union of every portfolio's symbols and date ranges is resolved first, so provider calls
+ * scale with the distinct symbols of the batch rather than with its trades. The portfolios are
+ * then valued in parallel on a fork/join pool, splitting the batch in halves down to
+ * {@link #LEAF_SIZE} portfolios per task.
+ */
+public class PortfolioBatchValuator {
+
+  static final int LEAF_SIZE = 32;
+
+  private final StockQuotesService stockQuotesService;
+  private final ForkJoinPool pool;
+  private final Executor fetchExecutor;
+  private final int fetchParallelism;
+  private final boolean adjusted;
+
+  public PortfolioBatchValuator(StockQuotesService stockQuotesService) {
+    this(stockQuotesService, ForkJoinPool.commonPool());
+  }
+
+  public PortfolioBatchValuator(StockQuotesService stockQuotesService, ForkJoinPool pool) {
+    this(stockQuotesService, pool, null, 1, false);
+  }
+
+  // Fetches the snapshot with up to fetchParallelism calls in flight on fetchExecutor.
+  public PortfolioBatchValuator(StockQuotesService stockQuotesService, ForkJoinPool pool,
+      Executor fetchExecutor, int fetchParallelism) {
+    this(stockQuotesService, pool, fetchExecutor, fetchParallelism, false);
+  }
+
+  // Same as above, valuing into aggregates created with the given adjusted flag.
+  public PortfolioBatchValuator(StockQuotesService stockQuotesService, ForkJoinPool pool,
+      Executor fetchExecutor, int fetchParallelism, boolean adjusted) {
+    this.stockQuotesService = stockQuotesService;
+    this.pool = pool;
+    this.fetchExecutor = fetchExecutor;
+    this.fetchParallelism = fetchParallelism;
+    this.adjusted = adjusted;
+  }
+
+  /**
+   * Loads one snapshot covering every portfolio and values each of them against it.
+   *
+   * @return an aggregate per portfolio, in the iteration order of {@code portfolios}
+   */
+  public <K> Map<K, PortfolioAggregate> value(
+      Map<K, ? extends List<PortfolioTrade>> portfolios, LocalDate endDate)
+      throws StockQuoteServiceException {
+    return value(loadSnapshot(portfolios, endDate), portfolios, endDate);
+  }
+
+  public QuoteSnapshot loadSnapshot(Map<?, ? extends List<PortfolioTrade>> portfolios,
+      LocalDate endDate) throws StockQuoteServiceException {
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    for (List<PortfolioTrade> trades : portfolios.values()) {
+      QuoteSnapshot.addRequests(requests, trades, endDate);
+    }
+    try {
+      return QuoteSnapshot.load(stockQuotesService, requests, fetchExecutor, fetchParallelism);
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+  }
+
+  // Values the portfolios against an already loaded snapshot; no provider calls are made.
+  public <K> Map<K, PortfolioAggregate> value(QuoteSnapshot snapshot,
+      Map<K, ? extends List<PortfolioTrade>> portfolios, LocalDate endDate) {
+    List<K> keys = new ArrayList<>(portfolios.keySet());
+    List<List<PortfolioTrade>> books = new ArrayList<>(portfolios.values());
+    PortfolioAggregate[] results = new PortfolioAggregate[books.size()];
+    pool.invoke(new ValuationTask(snapshot, books, endDate, adjusted, results, 0, books.size()));
+
+    Map<K, PortfolioAggregate> valued = new LinkedHashMap<>();
+    for (int i = 0; i < results.length; i++) {
+      valued.put(keys.get(i), results[i]);
+    }
+    return valued;
+  }
+
+  static PortfolioAggregate value(QuoteSnapshot snapshot, List<PortfolioTrade> trades,
+      LocalDate endDate, boolean adjusted) {
+    PortfolioAggregate aggregate = new PortfolioAggregate(adjusted);
+    for (PortfolioTrade trade : trades) {
+      aggregate.add(trade, snapshot.get(trade.getSymbol()).slice(trade.getPurchaseDate(), endDate));
+    }
+    return aggregate;
+  }
+
+  private static final class ValuationTask extends RecursiveAction {
+
+    private final QuoteSnapshot snapshot;
+    private final List<List<PortfolioTrade>> books;
+    private final LocalDate endDate;
+    private final boolean adjusted;
+    private final PortfolioAggregate[] results;
+    private final int from;
+    private final int to;
+
+    ValuationTask(QuoteSnapshot snapshot, List<List<PortfolioTrade>> books, LocalDate endDate,
+        boolean adjusted, PortfolioAggregate[] results, int from, int to) {
+      this.snapshot = snapshot;
+      this.books = books;
+      this.endDate = endDate;
+      this.adjusted = adjusted;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= LEAF_SIZE) {
+        for (int i = from; i < to; i++) {
+          results[i] = value(snapshot, books.get(i), endDate, adjusted);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new ValuationTask(snapshot, books, endDate, adjusted, results, from, middle),
+          new ValuationTask(snapshot, books, endDate, adjusted, results, middle, to));
+    }
+  }
+}
@@ -0,0 +1,258 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived executor used by {@link PortfolioManagerImpl} for per-trade work.
+ *
+ * <p>It runs in one of two modes. The default platform mode uses a fixed upper bound of threads
+ * that time out when idle, so a manager that is kept around between requests neither recreates
+ * threads per call nor pins them forever. {@link #virtualThreads(int, Duration)} instead starts
+ * one virtual thread per task and limits concurrency with a semaphore sized to the provider's
+ * quota, which suits the blocking quote fetches: thousands of trades can be in flight without
+ * as many OS threads.
+ *
+ * <p>Every task gets the configured timeout, counted from when it starts running, so time spent
+ * queued behind other tasks or waiting for a permit does not count against it. A task that fails
+ * or times out is interrupted, and {@link #invokeAll(List, int)} cancels the remaining tasks of
+ * its batch on the first failure.
+ */
+public class PortfolioExecutor implements Executor, AutoCloseable {
+
+  public static final int DEFAULT_THREADS = 16;
+  public static final Duration DEFAULT_TASK_TIMEOUT = Duration.ofSeconds(60);
+
+  private final ExecutorService executorService;
+  private final Semaphore permits;
+  private final Duration taskTimeout;
+  private final int concurrency;
+
+  public PortfolioExecutor() {
+    this(DEFAULT_THREADS, DEFAULT_TASK_TIMEOUT);
+  }
+
+  public PortfolioExecutor(int threads, Duration taskTimeout) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be positive: " + threads);
+    }
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+    pool.allowCoreThreadTimeOut(true);
+    this.executorService = pool;
+    this.permits = null;
+    this.taskTimeout = taskTimeout;
+    this.concurrency = threads;
+  }
+
+  private PortfolioExecutor(ExecutorService executorService, Semaphore permits,
+      int concurrency, Duration taskTimeout) {
+    this.executorService = executorService;
+    this.permits = permits;
+    this.taskTimeout = taskTimeout;
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * Creates an executor that runs each task on its own virtual thread, with at most
+   * {@code maxConcurrentTasks} tasks running at once across all callers sharing it.
+   */
+  public static PortfolioExecutor virtualThreads(int maxConcurrentTasks, Duration taskTimeout) {
+    if (maxConcurrentTasks < 1) {
+      throw new IllegalArgumentException(
+          "maxConcurrentTasks must be positive: " + maxConcurrentTasks);
+    }
+    ThreadFactory factory = Thread.ofVirtual().name("portfolio-vt-", 1).factory();
+    return new PortfolioExecutor(Executors.newThreadPerTaskExecutor(factory),
+        new Semaphore(maxConcurrentTasks), maxConcurrentTasks, taskTimeout);
+  }
+
+  // Upper bound of tasks this executor runs at once: the pool size for platform threads, the
+  // number of permits for virtual threads.
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public boolean isVirtual() {
+    return permits != null;
+  }
+
+  public Duration getTaskTimeout() {
+    return taskTimeout;
+  }
+
+  /**
+   * Runs the task on the pool. The returned future fails with a
+   * {@link java.util.concurrent.TimeoutException} if the task runs longer than the configured
+   * timeout after it starts; cancelling it, or a timeout, interrupts the worker.
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> running;
+    try {
+      running = executorService.submit(() -> {
+        try {
+          result.complete(permits == null ? call(task, result) : callWithPermit(task, result));
+        } catch (Throwable e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return result;
+    }
+    result.whenComplete((value, error) -> {
+      if (error != null) {
+        running.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Runs the command on the pool, holding a permit in virtual-thread mode, without the task
+   * timeout. Used to lend the pool to batch quote fetches.
+   */
+  @Override
+  public void execute(Runnable command) {
+    if (permits == null) {
+      executorService.execute(command);
+      return;
+    }
+    executorService.execute(() -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        command.run();
+      } finally {
+        permits.release();
+      }
+    });
+  }
+
+  /**
+   * Runs every task with at most {@code parallelism} of them in flight at once. The returned
+   * future completes with the results in task order, or exceptionally with the first failure,
+   * in which case all outstanding tasks are cancelled. Cancelling the returned future cancels
+   * them as well.
+   */
+  public <T> CompletableFuture<List<T>> invokeAll(List<? extends Callable<T>> tasks,
+      int parallelism) {
+    int count = tasks.size();
+    CompletableFuture<List<T>> all = new CompletableFuture<>();
+    if (count == 0) {
+      all.complete(new ArrayList<>());
+      return all;
+    }
+    Object[] results = new Object[count];
+    Queue<CompletableFuture<T>> started = new ConcurrentLinkedQueue<>();
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger completed = new AtomicInteger();
+
+    Runnable launchNext = new Runnable() {
+      @Override
+      public void run() {
+        int index = next.getAndIncrement();
+        if (index >= count || all.isDone()) {
+          return;
+        }
+        CompletableFuture<T> future = submit(tasks.get(index));
+        started.add(future);
+        if (all.isDone()) {
+          future.cancel(true);
+          return;
+        }
+        Runnable launcher = this;
+        future.whenComplete((value, error) -> {
+          if (error != null) {
+            all.completeExceptionally(unwrap(error));
+            return;
+          }
+          results[index] = value;
+          if (completed.incrementAndGet() == count) {
+            @SuppressWarnings("unchecked")
+            List<T> ordered = (List<T>) Arrays.asList(results);
+            all.complete(new ArrayList<>(ordered));
+          } else {
+            launcher.run();
+          }
+        });
+      }
+    };
+
+    all.whenComplete((value, error) -> {
+      if (error != null) {
+        started.forEach(future -> future.cancel(true));
+      }
+    });
+    for (int i = 0; i < Math.min(Math.max(parallelism, 1), count); i++) {
+      launchNext.run();
+    }
+    return all;
+  }
+
+  // Starts the task's timeout as it begins to run.
+  private <T> T call(Callable<T> task, CompletableFuture<T> result) throws Exception {
+    if (taskTimeout != null) {
+      result.orTimeout(taskTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    return task.call();
+  }
+
+  private <T> T callWithPermit(Callable<T> task, CompletableFuture<T> result) throws Exception {
+    permits.acquire();
+    try {
+      return call(task, result);
+    } finally {
+      permits.release();
+    }
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+  }
+
+  static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause() : error;
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final int pool = POOL_COUNT.incrementAndGet();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable,
+          "portfolio-" + pool + "-worker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
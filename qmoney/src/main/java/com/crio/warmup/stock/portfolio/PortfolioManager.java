@@ -4,8 +4,14 @@ package com.crio.warmup.stock.portfolio;
 import com.crio.warmup.stock.dto.AnnualizedReturn;
 import com.crio.warmup.stock.dto.PortfolioTrade;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.json.PortfolioTradeReader;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface PortfolioManager {
 
@@ -14,6 +20,21 @@ public interface PortfolioManager {
       LocalDate endDate, int numThreads) throws InterruptedException,
       StockQuoteServiceException;
 
+  // Evaluates every trade concurrently. The future completes with the returns sorted by
+  // annualized return (descending), or exceptionally with a StockQuoteServiceException as soon
+  // as any trade fails, at which point the outstanding work is cancelled. The default evaluates
+  // them with #calculateAnnualizedReturn on the calling thread.
+  default CompletableFuture<List<AnnualizedReturn>> calculateAnnualizedReturnAsync(
+      List<PortfolioTrade> portfolioTrades, LocalDate endDate) {
+    CompletableFuture<List<AnnualizedReturn>> result = new CompletableFuture<>();
+    try {
+      result.complete(calculateAnnualizedReturn(portfolioTrades, endDate));
+    } catch (StockQuoteServiceException | RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
   //CHECKSTYLE:OFF
 
 
@@ -21,5 +42,57 @@ public interface PortfolioManager {
       LocalDate endDate)
       throws StockQuoteServiceException
   ;
+
+  // Evaluates the trades chunk by chunk as they are read and hands each chunk's returns, sorted
+  // like #calculateAnnualizedReturn, to onChunk before reading the next one, so at most chunkSize
+  // trades and their returns are held at a time.
+  default void calculateAnnualizedReturn(PortfolioTradeReader trades, LocalDate endDate,
+      int chunkSize, Consumer<? super List<AnnualizedReturn>> onChunk)
+      throws StockQuoteServiceException, IOException {
+    for (List<PortfolioTrade> chunk = trades.nextChunk(chunkSize); !chunk.isEmpty();
+        chunk = trades.nextChunk(chunkSize)) {
+      onChunk.accept(calculateAnnualizedReturn(chunk, endDate));
+    }
+  }
+
+  // Like the callback variant, but collects the returns of every chunk and returns all of them
+  // sorted like #calculateAnnualizedReturn.
+  default List<AnnualizedReturn> calculateAnnualizedReturn(PortfolioTradeReader trades,
+      LocalDate endDate, int chunkSize) throws StockQuoteServiceException, IOException {
+    List<AnnualizedReturn> annualizedReturns = new ArrayList<>();
+    calculateAnnualizedReturn(trades, endDate, chunkSize, annualizedReturns::addAll);
+    annualizedReturns.sort(
+        Comparator.comparingDouble(AnnualizedReturn::getAnnualizedReturn).reversed());
+    return annualizedReturns;
+  }
+
+  // Offers the return of every trade to ranking, which keeps only its best (or worst) entries,
+  // so the full result list is never built or sorted.
+  default void offerAnnualizedReturns(List<PortfolioTrade> portfolioTrades, LocalDate endDate,
+      ReturnRanking ranking) throws StockQuoteServiceException {
+    for (AnnualizedReturn annualizedReturn : calculateAnnualizedReturn(portfolioTrades, endDate)) {
+      ranking.offer(annualizedReturn);
+    }
+  }
+
+  // The n best (Order.TOP) or worst (Order.BOTTOM) returns, best first.
+  default List<AnnualizedReturn> rankAnnualizedReturns(List<PortfolioTrade> portfolioTrades,
+      LocalDate endDate, int n, ReturnRanking.Order order) throws StockQuoteServiceException {
+    ReturnRanking ranking = ReturnRanking.of(order, n);
+    offerAnnualizedReturns(portfolioTrades, endDate, ranking);
+    return ranking.toList();
+  }
+
+  // Like #rankAnnualizedReturns, reading and evaluating the trades chunk by chunk.
+  default List<AnnualizedReturn> rankAnnualizedReturns(PortfolioTradeReader trades,
+      LocalDate endDate, int chunkSize, int n, ReturnRanking.Order order)
+      throws StockQuoteServiceException, IOException {
+    ReturnRanking ranking = ReturnRanking.of(order, n);
+    for (List<PortfolioTrade> chunk = trades.nextChunk(chunkSize); !chunk.isEmpty();
+        chunk = trades.nextChunk(chunkSize)) {
+      offerAnnualizedReturns(chunk, endDate, ranking);
+    }
+    return ranking.toList();
+  }
 }
 
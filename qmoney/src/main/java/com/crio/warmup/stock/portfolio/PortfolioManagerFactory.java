@@ -28,10 +28,61 @@ public class PortfolioManagerFactory {
   // ./gradlew test --tests PortfolioManagerFactory
 
 
+  // Rate-limited provider over the shared pooled HTTP client.
+  public static PortfolioManager getPortfolioManager(String provider) {
+    return new PortfolioManagerImpl(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider));
+  }
+
   public static PortfolioManager getPortfolioManager(String provider, RestTemplate restTemplate) {
     // return new PortfolioManagerImpl(restTemplate, provider);
     return new PortfolioManagerImpl(
-        StockQuoteServiceFactory.INSTANCE.getService(provider, restTemplate));
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider, restTemplate));
+  }
+
+  // Same as above, with the executor that runs the parallel/async paths, e.g.
+  // PortfolioExecutor.virtualThreads(quota, timeout) for one virtual thread per trade.
+  public static PortfolioManager getPortfolioManager(String provider, RestTemplate restTemplate,
+      PortfolioExecutor executor) {
+    return new PortfolioManagerImpl(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider, restTemplate), executor);
+  }
+
+  // Same as above; when adjusted is true, returns, aggregates, risk and correlations are computed
+  // on split- and dividend-adjusted prices instead of the quoted ones.
+  public static PortfolioManager getPortfolioManager(String provider, RestTemplate restTemplate,
+      PortfolioExecutor executor, boolean adjusted) {
+    return new PortfolioManagerImpl(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider, restTemplate), executor,
+        adjusted);
+  }
+
+  // Manager on the primary provider, hedging slow calls to and failing over to the secondary.
+  public static PortfolioManager getFailoverPortfolioManager(String primary, String secondary) {
+    return new PortfolioManagerImpl(
+        StockQuoteServiceFactory.INSTANCE.getFailoverService(primary, secondary));
+  }
+
+  // Manager whose async and parallel paths keep every symbol's request in flight at once on the
+  // non-blocking provider, without a thread per request.
+  public static PortfolioManager getNonBlockingPortfolioManager(String provider) {
+    return new PortfolioManagerImpl(StockQuoteServiceFactory.INSTANCE.getAsyncService(provider));
+  }
+
+  // Streaming engine over the same rate-limited provider, for books too large to evaluate as one
+  // list.
+  public static PortfolioPipeline getPortfolioPipeline(String provider,
+      RestTemplate restTemplate) {
+    return new PortfolioPipeline(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider, restTemplate));
+  }
+
+  // Same as above, with the fetchers running on executor, e.g. the one shared with a manager.
+  public static PortfolioPipeline getPortfolioPipeline(String provider,
+      RestTemplate restTemplate, PortfolioExecutor executor) {
+    return new PortfolioPipeline(
+        StockQuoteServiceFactory.INSTANCE.getRateLimitedService(provider, restTemplate), executor,
+        PortfolioPipeline.DEFAULT_FETCHERS, PortfolioPipeline.DEFAULT_QUEUE_CAPACITY);
   }
 
 }
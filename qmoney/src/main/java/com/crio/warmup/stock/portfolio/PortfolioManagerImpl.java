@@ -6,34 +6,46 @@ import static java.time.temporal.ChronoUnit.SECONDS;
 
 import com.crio.warmup.stock.dto.AnnualizedReturn;
 import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
 import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.RiskMetrics;
 import com.crio.warmup.stock.dto.TiingoCandle;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.AsyncStockQuotesService;
+import com.crio.warmup.stock.quotes.QuoteSnapshot;
 import com.crio.warmup.stock.quotes.StockQuotesService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.time.LocalDate;
+import java.time.Period;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.springframework.web.client.RestTemplate;
 
-public class PortfolioManagerImpl implements PortfolioManager {
+public class PortfolioManagerImpl implements PortfolioManager, AutoCloseable {
 
 
   private RestTemplate restTemplate;
   private StockQuotesService stockQuotesService;
+  private volatile PortfolioExecutor executor;
+  private boolean adjusted;
 
   // Caution: Do not delete or modify the constructor, or else your build will break!
   // This is absolutely necessary for backward compatibility
@@ -70,9 +82,24 @@ public class PortfolioManagerImpl implements PortfolioManager {
     this.stockQuotesService = stockQuotesService;
   }
 
+  // The executor is reused by every parallel/async call and closed with the manager. When none
+  // is given, a default one is created on first use.
+  public PortfolioManagerImpl(StockQuotesService stockQuotesService, PortfolioExecutor executor) {
+    this.stockQuotesService = stockQuotesService;
+    this.executor = executor;
+  }
+
+  // Same as above; when adjusted is true, every return, aggregate, risk and correlation figure is
+  // computed on split- and dividend-adjusted prices instead of the quoted ones.
+  public PortfolioManagerImpl(StockQuotesService stockQuotesService, PortfolioExecutor executor,
+      boolean adjusted) {
+    this(stockQuotesService, executor);
+    this.adjusted = adjusted;
+  }
+
 
   private Comparator<AnnualizedReturn> getComparator() {
-    return Comparator.comparing(AnnualizedReturn::getAnnualizedReturn).reversed();
+    return Comparator.comparingDouble(AnnualizedReturn::getAnnualizedReturn).reversed();
   }
 
   // CHECKSTYLE:OFF
@@ -98,47 +125,185 @@ public class PortfolioManagerImpl implements PortfolioManager {
   @Override
   public List<AnnualizedReturn> calculateAnnualizedReturn(List<PortfolioTrade> portfolioTrades,
       LocalDate endDate) throws StockQuoteServiceException {
-    // TODO Auto-generated method stub
-
-    List<AnnualizedReturn> annualizedReturnsList = new ArrayList<>();
+    Map<String, CandleSeries> quotes;
+    try {
+      quotes = fetchQuotes(toRequests(portfolioTrades, endDate));
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    return toAnnualizedReturns(portfolioTrades, endDate, quotes);
+  }
 
+  // Same as #calculateAnnualizedReturn, with each return's RiskMetrics computed in the same pass
+  // over the candles it was priced from, against the given annual risk-free rate.
+  public List<AnnualizedReturn> calculateAnnualizedReturnWithRisk(
+      List<PortfolioTrade> portfolioTrades, LocalDate endDate, double riskFreeRate)
+      throws StockQuoteServiceException {
+    Map<String, CandleSeries> quotes;
+    try {
+      quotes = fetchQuotes(toRequests(portfolioTrades, endDate));
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    List<AnnualizedReturn> annualizedReturns = new ArrayList<>(portfolioTrades.size());
     for (PortfolioTrade portfolioTrade : portfolioTrades) {
+      CandleSeries candles = quotes.get(portfolioTrade.getSymbol())
+          .slice(portfolioTrade.getPurchaseDate(), endDate);
+      if (!candles.isEmpty()) {
+        annualizedReturns.add(toAnnualizedReturn(portfolioTrade, candles, adjusted)
+            .withRisk(RiskMetrics.of(candles, riskFreeRate, adjusted)));
+      }
+    }
+    annualizedReturns.sort(getComparator());
+    return annualizedReturns;
+  }
+
+  @Override
+  public void offerAnnualizedReturns(List<PortfolioTrade> portfolioTrades, LocalDate endDate,
+      ReturnRanking ranking) throws StockQuoteServiceException {
+    Map<String, CandleSeries> quotes;
+    try {
+      quotes = fetchQuotes(toRequests(portfolioTrades, endDate));
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    forEachAnnualizedReturn(portfolioTrades, endDate, quotes, ranking::offer);
+  }
+
+  // Nets the BUY and SELL lots of every symbol and returns the quantity-weighted returns of each
+  // position and of the whole portfolio. Lots are folded into per-worker aggregates by a parallel
+  // stream and merged, so a large book is aggregated in one pass.
+  public PortfolioAggregate aggregatePortfolio(List<PortfolioTrade> portfolioTrades,
+      LocalDate endDate) throws StockQuoteServiceException {
+    Map<String, CandleSeries> quotes;
+    try {
+      quotes = fetchQuotes(toRequests(portfolioTrades, endDate));
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    return portfolioTrades.parallelStream()
+        .collect(PortfolioAggregate.collector(quotes::get, endDate, adjusted));
+  }
 
-      List<Candle> candlesList = new ArrayList<>();
+  // Aggregates many portfolios against one shared snapshot, fetching each symbol once for the
+  // whole batch. Results keep the iteration order of portfolios.
+  public <K> Map<K, PortfolioAggregate> aggregatePortfolios(
+      Map<K, ? extends List<PortfolioTrade>> portfolios, LocalDate endDate)
+      throws StockQuoteServiceException {
+    PortfolioExecutor fetchExecutor = getExecutor();
+    return new PortfolioBatchValuator(stockQuotesService, ForkJoinPool.commonPool(), fetchExecutor,
+        fetchExecutor.getConcurrency(), adjusted).value(portfolios, endDate);
+  }
 
+  // Rolling annualized returns of each symbol for every trading day ending within [from, to],
+  // one series per window in the order given. Each symbol's history is fetched once for all the
+  // windows, and the symbols are computed in parallel.
+  public Map<String, List<RollingReturns>> calculateRollingReturns(Collection<String> symbols,
+      LocalDate from, LocalDate to, List<Period> windows) throws StockQuoteServiceException {
+    // A week of slack so the earliest window still finds its start candle past a weekend or
+    // holiday.
+    LocalDate historyFrom = from.minusWeeks(1);
+    for (Period window : windows) {
+      historyFrom = min(historyFrom, from.minus(window).minusWeeks(1));
+    }
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      requests.put(symbol, DateRange.of(historyFrom, to));
+    }
+    QuoteSnapshot quotes;
+    try {
+      quotes = QuoteSnapshot.load(stockQuotesService, requests, getExecutor(),
+          getExecutor().getConcurrency());
+    } catch (JsonProcessingException e) {
+      throw new StockQuoteServiceException("Could not parse quotes", e);
+    }
+    Map<String, List<RollingReturns>> rollingReturns = requests.keySet().parallelStream()
+        .collect(Collectors.toConcurrentMap(symbol -> symbol, symbol -> windows.stream()
+            .map(window -> RollingReturns.of(symbol, quotes.get(symbol), window, adjusted)
+                .slice(from, to))
+            .collect(Collectors.toList())));
+    Map<String, List<RollingReturns>> ordered = new LinkedHashMap<>();
+    for (String symbol : requests.keySet()) {
+      ordered.put(symbol, rollingReturns.get(symbol));
+    }
+    return ordered;
+  }
 
-      try {
-        candlesList = stockQuotesService.getStockQuote(portfolioTrade.getSymbol(),
-            portfolioTrade.getPurchaseDate(), endDate);
-        // TODO Auto-generated catch block
-
-        if (!candlesList.isEmpty()) {
-          Double buyPrice = candlesList.get(0).getOpen();
-          Double sellPrice = candlesList.get(candlesList.size() - 1).getClose();
-          LocalDate sellDate = candlesList.get(candlesList.size() - 1).getDate();
-          annualizedReturnsList
-              .add(calculateAnnualizedReturns(sellDate, portfolioTrade, buyPrice, sellPrice));
-        }
+  // Covariance and correlation of the symbols' daily returns over [from, to], e.g. for every
+  // symbol of a portfolio. Computed in parallel tiles by CorrelationEngine.
+  public CorrelationMatrix calculateCorrelationMatrix(Collection<String> symbols,
+      LocalDate from, LocalDate to) throws StockQuoteServiceException {
+    PortfolioExecutor fetchExecutor = getExecutor();
+    return new CorrelationEngine(stockQuotesService, ForkJoinPool.commonPool(),
+        ReturnKernels.getDefault(), fetchExecutor, fetchExecutor.getConcurrency(), adjusted)
+        .compute(symbols, from, to);
+  }
 
+  private static LocalDate min(LocalDate a, LocalDate b) {
+    return a.isBefore(b) ? a : b;
+  }
 
-      } catch (JsonProcessingException e) {
-        // TODO Auto-generated catch block
-        throw new StockQuoteServiceException("rate limit exceed!!");
-      }
+  // One range per symbol, covering every trade of that symbol, so each symbol is fetched once.
+  private static Map<String, DateRange> toRequests(List<PortfolioTrade> portfolioTrades,
+      LocalDate endDate) {
+    return QuoteSnapshot.requests(portfolioTrades, endDate);
+  }
 
-    }
+  private Map<String, CandleSeries> fetchQuotes(Map<String, DateRange> requests)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return QuoteSnapshot.load(stockQuotesService, requests).asMap();
+  }
 
+  private List<AnnualizedReturn> toAnnualizedReturns(List<PortfolioTrade> portfolioTrades,
+      LocalDate endDate, Map<String, CandleSeries> quotes) {
+    List<AnnualizedReturn> annualizedReturnsList = new ArrayList<>(portfolioTrades.size());
+    forEachAnnualizedReturn(portfolioTrades, endDate, quotes, annualizedReturnsList::add);
     Collections.sort(annualizedReturnsList, getComparator());
     return annualizedReturnsList;
   }
 
+  // Trades without candles in their own range are skipped.
+  private void forEachAnnualizedReturn(List<PortfolioTrade> portfolioTrades,
+      LocalDate endDate, Map<String, CandleSeries> quotes, Consumer<AnnualizedReturn> action) {
+    for (PortfolioTrade portfolioTrade : portfolioTrades) {
+      CandleSeries candles = quotes.get(portfolioTrade.getSymbol())
+          .slice(portfolioTrade.getPurchaseDate(), endDate);
+      if (!candles.isEmpty()) {
+        action.accept(toAnnualizedReturn(portfolioTrade, candles, adjusted));
+      }
+    }
+  }
+
   public static AnnualizedReturn calculateAnnualizedReturns(LocalDate endDate, PortfolioTrade trade,
       Double buyPrice, Double sellPrice) throws JsonProcessingException {
+    return calculateAnnualizedReturns(endDate, trade, buyPrice.doubleValue(),
+        sellPrice.doubleValue());
+  }
 
-    Double totalReturn = (sellPrice - buyPrice) / buyPrice;
-    Double years = ChronoUnit.DAYS.between(trade.getPurchaseDate(), endDate) / 365d;
-    Double annualized_returns = Math.pow((1 + totalReturn), (1 / years)) - 1;
-    return new AnnualizedReturn(trade.getSymbol(), annualized_returns, totalReturn);
+  static AnnualizedReturn calculateAnnualizedReturns(LocalDate endDate, PortfolioTrade trade,
+      double buyPrice, double sellPrice) {
+    double totalReturn = (sellPrice - buyPrice) / buyPrice;
+    double years = ChronoUnit.DAYS.between(trade.getPurchaseDate(), endDate) / 365d;
+    double annualizedReturn = Math.pow(1 + totalReturn, 1 / years) - 1;
+    return new AnnualizedReturn(trade.getSymbol(), annualizedReturn, totalReturn);
+  }
+
+  // Buys at the open of the first candle and sells at the close of the last one, at quoted
+  // prices.
+  static AnnualizedReturn toAnnualizedReturn(PortfolioTrade trade, CandleSeries candles) {
+    return toAnnualizedReturn(trade, candles, false);
+  }
+
+  // Same as above; when adjusted is true, the sell price is adjusted for the splits and dividends
+  // in between.
+  static AnnualizedReturn toAnnualizedReturn(PortfolioTrade trade, CandleSeries candles,
+      boolean adjusted) {
+    int last = candles.size() - 1;
+    double sellPrice = candles.getClose(last);
+    if (adjusted) {
+      sellPrice *= candles.getAdjustment(0, last);
+    }
+    return calculateAnnualizedReturns(candles.getDate(last), trade, candles.getOpen(0), sellPrice);
   }
 
   public static String getToken() {
@@ -151,52 +316,147 @@ public class PortfolioManagerImpl implements PortfolioManager {
   public List<AnnualizedReturn> calculateAnnualizedReturnParallel(
       List<PortfolioTrade> portfolioTrades, LocalDate endDate, int numThreads)
       throws InterruptedException, StockQuoteServiceException {
-    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-
-    List<Future<AnnualizedReturn>> futureList = new ArrayList<>();
+    CompletableFuture<List<AnnualizedReturn>> result =
+        calculateAnnualizedReturnAsync(portfolioTrades, endDate, numThreads);
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      result.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      throw asStockQuoteServiceException(e.getCause());
+    }
+  }
 
+  @Override
+  public CompletableFuture<List<AnnualizedReturn>> calculateAnnualizedReturnAsync(
+      List<PortfolioTrade> portfolioTrades, LocalDate endDate) {
+    return calculateAnnualizedReturnAsync(portfolioTrades, endDate,
+        getExecutor().getConcurrency());
+  }
 
-    for (int i = 0; i < numThreads && i < portfolioTrades.size(); i++) {
-      Callable<AnnualizedReturn> task = new TaskCallable(endDate, portfolioTrades.get(i));
-      Future<AnnualizedReturn> future = executor.submit(task);
-      futureList.add(future);
+  // Each symbol is fetched as its own task on the shared executor, with at most numThreads in
+  // flight, so the per-task timeout covers one fetch and a slow symbol holds back no other.
+  private CompletableFuture<List<AnnualizedReturn>> calculateAnnualizedReturnAsync(
+      List<PortfolioTrade> portfolioTrades, LocalDate endDate, int numThreads) {
+    if (stockQuotesService instanceof AsyncStockQuotesService) {
+      return calculateAnnualizedReturnNonBlocking(portfolioTrades, endDate,
+          (AsyncStockQuotesService) stockQuotesService);
+    }
+    Map<String, DateRange> requests = toRequests(portfolioTrades, endDate);
+    List<String> symbols = new ArrayList<>(requests.keySet());
+    List<Callable<CandleSeries>> tasks = new ArrayList<>(symbols.size());
+    for (String symbol : symbols) {
+      tasks.add(new TaskCallable(symbol, requests.get(symbol)));
     }
 
-    // Collect the results from the futures
-    List<AnnualizedReturn> results = new ArrayList<>();
-    for (Future<AnnualizedReturn> future : futureList) {
+    CompletableFuture<List<CandleSeries>> results =
+        getExecutor().invokeAll(tasks, Math.max(1, numThreads));
+    CompletableFuture<List<AnnualizedReturn>> sorted = new CompletableFuture<>();
+    results.whenComplete((series, error) -> {
+      if (error != null) {
+        sorted.completeExceptionally(asStockQuoteServiceException(error));
+        return;
+      }
+      Map<String, CandleSeries> quotes = new HashMap<>();
+      for (int i = 0; i < symbols.size(); i++) {
+        quotes.put(symbols.get(i), series.get(i));
+      }
       try {
-        AnnualizedReturn annualizedReturn = future.get();
-        results.add(annualizedReturn);
-      } catch (InterruptedException | ExecutionException e) {
-        throw new StockQuoteServiceException("Rate limit exceeded!!");
+        sorted.complete(toAnnualizedReturns(portfolioTrades, endDate, quotes));
+      } catch (RuntimeException e) {
+        sorted.completeExceptionally(asStockQuoteServiceException(e));
+      }
+    });
+    sorted.whenComplete((value, error) -> {
+      if (sorted.isCancelled()) {
+        results.cancel(true);
       }
+    });
+    return sorted;
+  }
+
+  // Every symbol's request is in flight at once and no thread waits on them; the returns are
+  // computed by whichever thread completes the last fetch. The first failure fails the result
+  // and cancels the fetches still outstanding.
+  private CompletableFuture<List<AnnualizedReturn>> calculateAnnualizedReturnNonBlocking(
+      List<PortfolioTrade> portfolioTrades, LocalDate endDate,
+      AsyncStockQuotesService asyncQuotesService) {
+    Map<String, CompletableFuture<CandleSeries>> fetches = new LinkedHashMap<>();
+    toRequests(portfolioTrades, endDate).forEach((symbol, range) -> fetches.put(symbol,
+        asyncQuotesService.getCandleSeriesAsync(symbol, range.getFrom(), range.getTo())));
+
+    CompletableFuture<List<AnnualizedReturn>> sorted = new CompletableFuture<>();
+    for (CompletableFuture<CandleSeries> fetch : fetches.values()) {
+      fetch.whenComplete((candles, error) -> {
+        if (error != null) {
+          sorted.completeExceptionally(asStockQuoteServiceException(error));
+        }
+      });
+    }
+    CompletableFuture.allOf(fetches.values().toArray(new CompletableFuture<?>[0]))
+        .thenRun(() -> {
+          Map<String, CandleSeries> quotes = new HashMap<>();
+          fetches.forEach((symbol, fetch) -> quotes.put(symbol, fetch.join()));
+          try {
+            sorted.complete(toAnnualizedReturns(portfolioTrades, endDate, quotes));
+          } catch (RuntimeException e) {
+            sorted.completeExceptionally(asStockQuoteServiceException(e));
+          }
+        });
+    sorted.whenComplete((value, error) -> {
+      if (error != null) {
+        fetches.values().forEach(fetch -> fetch.cancel(true));
+      }
+    });
+    return sorted;
+  }
+
+  private static StockQuoteServiceException asStockQuoteServiceException(Throwable error) {
+    Throwable cause = PortfolioExecutor.unwrap(error);
+    if (cause instanceof StockQuoteServiceException) {
+      return (StockQuoteServiceException) cause;
+    }
+    if (cause instanceof TimeoutException) {
+      return new StockQuoteServiceException("Timed out fetching quotes", cause);
+    }
+    return new StockQuoteServiceException("Failed to fetch quotes", cause);
+  }
+
+  private PortfolioExecutor getExecutor() {
+    PortfolioExecutor current = executor;
+    if (current == null) {
+      synchronized (this) {
+        if (executor == null) {
+          executor = new PortfolioExecutor();
+        }
+        current = executor;
+      }
+    }
+    return current;
+  }
+
+  @Override
+  public void close() {
+    PortfolioExecutor current = executor;
+    if (current != null) {
+      current.close();
     }
-    executor.shutdown();
-    Collections.sort(results, getComparator());
-    return results;
   }
 
-  class TaskCallable implements Callable<AnnualizedReturn> {
-    PortfolioTrade trades;
-    LocalDate endDate;
+  class TaskCallable implements Callable<CandleSeries> {
+    String symbol;
+    DateRange range;
 
 
-    public TaskCallable(LocalDate endDate, PortfolioTrade trades) {
-      this.endDate = endDate;
-      this.trades = trades;
+    public TaskCallable(String symbol, DateRange range) {
+      this.symbol = symbol;
+      this.range = range;
     }
 
     @Override
-    public AnnualizedReturn call() throws Exception {
-      List<Candle> candles =
-          stockQuotesService.getStockQuote(trades.getSymbol(), trades.getPurchaseDate(), endDate);
-      // if(candles != null){
-      Candle tiingoCandle = candles.get(0);
-      Candle tiingoCandlelast = candles.get(candles.size() - 1);
-      AnnualizedReturn annualizedReturn = calculateAnnualizedReturns(tiingoCandlelast.getDate(),
-          trades, tiingoCandle.getOpen(), tiingoCandlelast.getClose());
-      return annualizedReturn;
+    public CandleSeries call() throws Exception {
+      return fetchQuotes(Collections.singletonMap(symbol, range)).get(symbol);
     }
   }
 
@@ -0,0 +1,210 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Fetch-and-compute engine that overlaps quote I/O with the return calculation.
+ *
+ * <p>{@code fetchers} stages run on a {@link PortfolioExecutor}. Each one pulls the next trade
+ * from the source, loads its quotes and queues them on a bounded queue, while the calling thread
+ * computes each return, hands it to the sink and keeps the best {@code topN} in a bounded heap.
+ * Results therefore come out in completion order as soon as they are ready, and a slow sink or
+ * provider backs the fetchers up instead of buffering the book: at most the queue capacity plus
+ * one trade per fetcher are in memory at once.
+ *
+ * <p>The first failure stops the run; the other fetchers stop after their current trade and the
+ * failure is rethrown from {@link #run}.
+ */
+public class PortfolioPipeline implements AutoCloseable {
+
+  public static final int DEFAULT_FETCHERS = PortfolioExecutor.DEFAULT_THREADS;
+  public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+  private static final long OFFER_INTERVAL_MILLIS = 50;
+
+  private final StockQuotesService stockQuotesService;
+  private final PortfolioExecutor executor;
+  private final boolean ownsExecutor;
+  private final int fetchers;
+  private final int queueCapacity;
+
+  public PortfolioPipeline(StockQuotesService stockQuotesService) {
+    this(stockQuotesService, DEFAULT_FETCHERS, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public PortfolioPipeline(StockQuotesService stockQuotesService, int fetchers,
+      int queueCapacity) {
+    this(stockQuotesService, new PortfolioExecutor(Math.max(fetchers, 1), null), true, fetchers,
+        queueCapacity);
+  }
+
+  // Runs the fetchers on a shared executor, e.g. a manager's virtual-thread executor, whose
+  // concurrency limit then also bounds the pipeline. The executor is not closed with the pipeline.
+  public PortfolioPipeline(StockQuotesService stockQuotesService, PortfolioExecutor executor,
+      int fetchers, int queueCapacity) {
+    this(stockQuotesService, executor, false, fetchers, queueCapacity);
+  }
+
+  private PortfolioPipeline(StockQuotesService stockQuotesService, PortfolioExecutor executor,
+      boolean ownsExecutor, int fetchers, int queueCapacity) {
+    if (fetchers < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException(
+          "fetchers and queueCapacity must be positive: " + fetchers + ", " + queueCapacity);
+    }
+    this.stockQuotesService = stockQuotesService;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.fetchers = fetchers;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Evaluates every trade from {@code trades}, passing each return to {@code sink} on the calling
+   * thread as soon as it is computed. Trades without candles are skipped, as in
+   * {@link PortfolioManager#calculateAnnualizedReturn}.
+   *
+   * @return the {@code topN} best returns, sorted by annualized return (descending)
+   */
+  public List<AnnualizedReturn> run(Iterator<PortfolioTrade> trades, LocalDate endDate,
+      int topN, Consumer<AnnualizedReturn> sink)
+      throws StockQuoteServiceException, InterruptedException {
+    Run run = new Run(trades, new ArrayBlockingQueue<>(queueCapacity));
+    ReturnRanking best = ReturnRanking.top(Math.max(topN, 0));
+    int started = 0;
+    try {
+      for (; started < fetchers; started++) {
+        executor.execute(() -> fetch(run, endDate));
+      }
+
+      int finishedFetchers = 0;
+      while (finishedFetchers < started) {
+        Item item = run.fetched.take();
+        if (item.error != null) {
+          throw asStockQuoteServiceException(item.error);
+        }
+        if (item == Item.END) {
+          finishedFetchers++;
+          continue;
+        }
+        AnnualizedReturn annualizedReturn =
+            PortfolioManagerImpl.toAnnualizedReturn(item.trade, item.candles);
+        sink.accept(annualizedReturn);
+        best.offer(annualizedReturn);
+      }
+    } finally {
+      run.stopped = true;
+    }
+
+    return best.toList();
+  }
+
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.close();
+    }
+  }
+
+  // Always ends with exactly one END or error item, unless the run has been stopped.
+  private void fetch(Run run, LocalDate endDate) {
+    Item last = Item.END;
+    try {
+      PortfolioTrade trade;
+      while (!run.stopped && (trade = run.nextTrade()) != null) {
+        CandleSeries candles = stockQuotesService.getCandleSeries(trade.getSymbol(),
+            trade.getPurchaseDate(), endDate);
+        if (!candles.isEmpty() && !run.put(new Item(trade, candles, null))) {
+          return;
+        }
+      }
+    } catch (Throwable e) {
+      last = new Item(null, null, e);
+    }
+    run.put(last);
+  }
+
+  private static StockQuoteServiceException asStockQuoteServiceException(Throwable error) {
+    if (error instanceof StockQuoteServiceException) {
+      return (StockQuoteServiceException) error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    return new StockQuoteServiceException("Failed to fetch quotes", error);
+  }
+
+  private static final class Item {
+
+    static final Item END = new Item(null, null, null);
+
+    final PortfolioTrade trade;
+    final CandleSeries candles;
+    final Throwable error;
+
+    Item(PortfolioTrade trade, CandleSeries candles, Throwable error) {
+      this.trade = trade;
+      this.candles = candles;
+      this.error = error;
+    }
+  }
+
+  private static final class Run {
+
+    final Iterator<PortfolioTrade> trades;
+    final BlockingQueue<Item> fetched;
+    final ReentrantLock tradesLock = new ReentrantLock();
+    volatile boolean stopped;
+
+    Run(Iterator<PortfolioTrade> trades, BlockingQueue<Item> fetched) {
+      this.trades = trades;
+      this.fetched = fetched;
+    }
+
+    PortfolioTrade nextTrade() {
+      tradesLock.lock();
+      try {
+        return trades.hasNext() ? trades.next() : null;
+      } finally {
+        tradesLock.unlock();
+      }
+    }
+
+    // Waits for room in the queue until the run stops. An interrupt does not drop the item, as
+    // the caller counts on every fetcher's last one; it is restored once the item is queued.
+    boolean put(Item item) {
+      boolean interrupted = false;
+      try {
+        while (!stopped) {
+          try {
+            if (fetched.offer(item, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+              return true;
+            }
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        return false;
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
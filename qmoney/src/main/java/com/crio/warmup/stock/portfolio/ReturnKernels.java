@@ -0,0 +1,64 @@
+
+package com.crio.warmup.stock.portfolio;
+
+/**
+ * Bulk return and statistics kernels over primitive {@code double[]} columns, e.g. the close
+ * prices of a {@link com.crio.warmup.stock.dto.CandleSeries} or one value per symbol of a
+ * universe.
+ *
+ * <p>Two implementations compute the same results: a scalar one, and one on the
+ * {@code jdk.incubator.vector} API that processes as many doubles per instruction as the CPU's
+ * widest vector registers hold. Vectorized log and exp may differ from {@link Math} in the last
+ * bit or so.
+ */
+public interface ReturnKernels {
+
+  // System property choosing the default kernels: "vector", "scalar" or "auto" (the default,
+  // vector when the jdk.incubator.vector module is available).
+  String PROPERTY = "qmoney.kernels";
+
+  String getName();
+
+  // out[i] = ln(closes[i + 1] / closes[i]) for i < length - 1.
+  void logReturns(double[] closes, int length, double[] out);
+
+  // out[i] = values[0] * ... * values[i]. Each step depends on the previous one, so this is a
+  // scalar loop in every implementation.
+  void cumulativeProduct(double[] values, int length, double[] out);
+
+  double mean(double[] values, int length);
+
+  // Sample variance (n - 1 denominator), from the mean in a second pass for accuracy.
+  double variance(double[] values, int length);
+
+  // Sum of a[i] * b[i] for from <= i < to.
+  double dot(double[] a, double[] b, int from, int to);
+
+  // out[i] = (sellPrices[i] / buyPrices[i]) ^ (1 / years[i]) - 1, the annualized return of
+  // PortfolioManagerImpl#calculateAnnualizedReturns.
+  void annualizedReturns(double[] buyPrices, double[] sellPrices, double[] years, int length,
+      double[] out);
+
+  static ReturnKernels getDefault() {
+    return KernelSelector.DEFAULT;
+  }
+
+  static ReturnKernels scalar() {
+    return ScalarReturnKernels.INSTANCE;
+  }
+
+  // The vectorized kernels; fails if the JVM was started without
+  // --add-modules jdk.incubator.vector.
+  static ReturnKernels vector() {
+    ReturnKernels vector = KernelSelector.VECTOR;
+    if (vector == null) {
+      throw new UnsupportedOperationException(
+          "Vector kernels need the JVM option --add-modules jdk.incubator.vector");
+    }
+    return vector;
+  }
+
+  static boolean isVectorAvailable() {
+    return KernelSelector.VECTOR != null;
+  }
+}
@@ -0,0 +1,149 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded top-K (or bottom-K) of annualized returns, updated one result at a time.
+ *
+ * <p>Keeps the k best candidates in a binary heap whose root is the weakest of them, so each
+ * offer is O(log k) and most results of a large portfolio are rejected after a single primitive
+ * comparison against the root. Keys are held unboxed alongside the results and compared with
+ * {@link Double#compare}, matching how a full sort orders them, except that a NaN return always
+ * ranks last, in both orders. Not thread-safe.
+ */
+public final class ReturnRanking {
+
+  public enum Order {
+    // Highest annualized return first.
+    TOP,
+    // Lowest annualized return first.
+    BOTTOM
+  }
+
+  private final Order order;
+  private final int capacity;
+  private final double[] keys;
+  private final AnnualizedReturn[] values;
+  private int size;
+
+  private ReturnRanking(Order order, int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+    }
+    this.order = order;
+    this.capacity = capacity;
+    this.keys = new double[capacity];
+    this.values = new AnnualizedReturn[capacity];
+  }
+
+  public static ReturnRanking top(int k) {
+    return new ReturnRanking(Order.TOP, k);
+  }
+
+  public static ReturnRanking bottom(int k) {
+    return new ReturnRanking(Order.BOTTOM, k);
+  }
+
+  public static ReturnRanking of(Order order, int k) {
+    return new ReturnRanking(order, k);
+  }
+
+  public Order getOrder() {
+    return order;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Returns whether the result is currently ranked.
+  public boolean offer(AnnualizedReturn annualizedReturn) {
+    if (capacity == 0) {
+      return false;
+    }
+    double value = annualizedReturn.getAnnualizedReturn();
+    // Keys are stored so that "larger is better" for both orders.
+    double key = order == Order.TOP ? value : -value;
+    if (size < capacity) {
+      siftUp(size++, key, annualizedReturn);
+      return true;
+    }
+    if (compareKeys(key, keys[0]) <= 0) {
+      return false;
+    }
+    siftDown(0, key, annualizedReturn);
+    return true;
+  }
+
+  /**
+   * The ranked results, best first: descending for {@link Order#TOP}, ascending for
+   * {@link Order#BOTTOM}. The ranking is left unchanged.
+   */
+  public List<AnnualizedReturn> toList() {
+    double[] heapKeys = keys.clone();
+    AnnualizedReturn[] heapValues = values.clone();
+    int heapSize = size;
+    AnnualizedReturn[] ranked = new AnnualizedReturn[size];
+    // Repeatedly remove the weakest, filling the output from the back.
+    for (int i = size - 1; i >= 0; i--) {
+      ranked[i] = heapValues[0];
+      heapSize--;
+      siftDown(heapKeys, heapValues, heapSize, 0, heapKeys[heapSize], heapValues[heapSize]);
+    }
+    return new ArrayList<>(Arrays.asList(ranked));
+  }
+
+  private void siftUp(int index, double key, AnnualizedReturn value) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (compareKeys(key, keys[parent]) >= 0) {
+        break;
+      }
+      keys[index] = keys[parent];
+      values[index] = values[parent];
+      index = parent;
+    }
+    keys[index] = key;
+    values[index] = value;
+  }
+
+  private void siftDown(int index, double key, AnnualizedReturn value) {
+    siftDown(keys, values, size, index, key, value);
+  }
+
+  private static void siftDown(double[] keys, AnnualizedReturn[] values, int size, int index,
+      double key, AnnualizedReturn value) {
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < size && compareKeys(keys[right], keys[child]) < 0) {
+        child = right;
+      }
+      if (compareKeys(key, keys[child]) <= 0) {
+        break;
+      }
+      keys[index] = keys[child];
+      values[index] = values[child];
+      index = child;
+    }
+    if (index < size) {
+      keys[index] = key;
+      values[index] = value;
+    }
+  }
+
+  // Double.compare, but with NaN below every other key rather than above.
+  private static int compareKeys(double a, double b) {
+    boolean aIsNaN = Double.isNaN(a);
+    boolean bIsNaN = Double.isNaN(b);
+    if (aIsNaN || bIsNaN) {
+      return aIsNaN == bIsNaN ? 0 : aIsNaN ? -1 : 1;
+    }
+    return Double.compare(a, b);
+  }
+}
@@ -0,0 +1,137 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.CandleSeries;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+
+/**
+ * Trailing annualized returns of one symbol over a fixed window, for every trading day whose
+ * whole window lies within the candle history.
+ *
+ * <p>The return ending on a day buys at the open of the first candle on or after the same day
+ * one window earlier and sells at that day's close, annualized like
+ * {@link PortfolioManagerImpl#calculateAnnualizedReturns}. Both ends of the window only move
+ * forward as it slides, so a whole history is computed in one pass, O(1) amortized per day.
+ * The annualization runs on {@link ReturnKernels}, vectorized where available.
+ */
+public final class RollingReturns {
+
+  public static final Period ONE_YEAR = Period.ofYears(1);
+  public static final Period THREE_YEARS = Period.ofYears(3);
+  public static final Period FIVE_YEARS = Period.ofYears(5);
+
+  private final String symbol;
+  private final Period window;
+  private final int[] days;
+  private final double[] annualizedReturns;
+  private final double[] totalReturns;
+
+  private RollingReturns(String symbol, Period window, int[] days, double[] annualizedReturns,
+      double[] totalReturns) {
+    this.symbol = symbol;
+    this.window = window;
+    this.days = days;
+    this.annualizedReturns = annualizedReturns;
+    this.totalReturns = totalReturns;
+  }
+
+  public static RollingReturns of(String symbol, CandleSeries candles, Period window) {
+    return of(symbol, candles, window, false);
+  }
+
+  // When adjusted is true, each sell price is adjusted for the splits and dividends within its
+  // window.
+  public static RollingReturns of(String symbol, CandleSeries candles, Period window,
+      boolean adjusted) {
+    return of(symbol, candles, window, ReturnKernels.getDefault(), adjusted);
+  }
+
+  public static RollingReturns of(String symbol, CandleSeries candles, Period window,
+      ReturnKernels kernels) {
+    return of(symbol, candles, window, kernels, false);
+  }
+
+  // The window pass gathers each day's prices and holding period; the annualization, the costly
+  // part, then runs over those columns in bulk on the given kernels.
+  public static RollingReturns of(String symbol, CandleSeries candles, Period window,
+      ReturnKernels kernels, boolean adjusted) {
+    int length = candles.size();
+    int[] days = new int[length];
+    double[] buyPrices = new double[length];
+    double[] sellPrices = new double[length];
+    double[] years = new double[length];
+    double[] totalReturns = new double[length];
+    int count = 0;
+    int start = 0;
+    for (int end = 0; end < length; end++) {
+      int endDay = candles.getEpochDay(end);
+      long startDay = LocalDate.ofEpochDay(endDay).minus(window).toEpochDay();
+      if (candles.getEpochDay(0) > startDay) {
+        continue;
+      }
+      while (candles.getEpochDay(start) < startDay) {
+        start++;
+      }
+      double buyPrice = candles.getOpen(start);
+      double sellPrice = candles.getClose(end);
+      if (adjusted) {
+        sellPrice *= candles.getAdjustment(start, end);
+      }
+      days[count] = endDay;
+      buyPrices[count] = buyPrice;
+      sellPrices[count] = sellPrice;
+      years[count] = (endDay - startDay) / 365d;
+      totalReturns[count] = (sellPrice - buyPrice) / buyPrice;
+      count++;
+    }
+    double[] annualizedReturns = new double[count];
+    kernels.annualizedReturns(buyPrices, sellPrices, years, count, annualizedReturns);
+    return new RollingReturns(symbol, window, Arrays.copyOf(days, count), annualizedReturns,
+        Arrays.copyOf(totalReturns, count));
+  }
+
+  // Returns the days ending within [from, to].
+  public RollingReturns slice(LocalDate from, LocalDate to) {
+    int fromIndex = lowerBound(from.toEpochDay());
+    int toIndex = Math.max(fromIndex, lowerBound(to.toEpochDay() + 1));
+    return new RollingReturns(symbol, window, Arrays.copyOfRange(days, fromIndex, toIndex),
+        Arrays.copyOfRange(annualizedReturns, fromIndex, toIndex),
+        Arrays.copyOfRange(totalReturns, fromIndex, toIndex));
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public Period getWindow() {
+    return window;
+  }
+
+  public int size() {
+    return days.length;
+  }
+
+  public LocalDate getDate(int index) {
+    return LocalDate.ofEpochDay(days[index]);
+  }
+
+  public double getAnnualizedReturn(int index) {
+    return annualizedReturns[index];
+  }
+
+  public double getTotalReturn(int index) {
+    return totalReturns[index];
+  }
+
+  public AnnualizedReturn toAnnualizedReturn(int index) {
+    return new AnnualizedReturn(symbol, annualizedReturns[index], totalReturns[index]);
+  }
+
+  private int lowerBound(long epochDay) {
+    int index = Arrays.binarySearch(days, (int) epochDay);
+    return index >= 0 ? index : -index - 1;
+  }
+}
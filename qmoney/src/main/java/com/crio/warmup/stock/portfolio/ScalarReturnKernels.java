@@ -0,0 +1,67 @@
+
+package com.crio.warmup.stock.portfolio;
+
+final class ScalarReturnKernels implements ReturnKernels {
+
+  static final ScalarReturnKernels INSTANCE = new ScalarReturnKernels();
+
+  private ScalarReturnKernels() {}
+
+  @Override
+  public String getName() {
+    return "scalar";
+  }
+
+  @Override
+  public void logReturns(double[] closes, int length, double[] out) {
+    for (int i = 0; i < length - 1; i++) {
+      out[i] = Math.log(closes[i + 1] / closes[i]);
+    }
+  }
+
+  @Override
+  public void cumulativeProduct(double[] values, int length, double[] out) {
+    double product = 1;
+    for (int i = 0; i < length; i++) {
+      product *= values[i];
+      out[i] = product;
+    }
+  }
+
+  @Override
+  public double mean(double[] values, int length) {
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += values[i];
+    }
+    return sum / length;
+  }
+
+  @Override
+  public double variance(double[] values, int length) {
+    double mean = mean(values, length);
+    double squares = 0;
+    for (int i = 0; i < length; i++) {
+      double deviation = values[i] - mean;
+      squares += deviation * deviation;
+    }
+    return squares / (length - 1);
+  }
+
+  @Override
+  public double dot(double[] a, double[] b, int from, int to) {
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public void annualizedReturns(double[] buyPrices, double[] sellPrices, double[] years,
+      int length, double[] out) {
+    for (int i = 0; i < length; i++) {
+      out[i] = Math.pow(sellPrices[i] / buyPrices[i], 1 / years[i]) - 1;
+    }
+  }
+}
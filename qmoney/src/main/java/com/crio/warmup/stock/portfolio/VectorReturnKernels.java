@@ -0,0 +1,104 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Loaded only through KernelSelector, when jdk.incubator.vector is in the boot layer. Each loop
+// runs whole vectors of the preferred species and finishes the remainder with scalar code.
+final class VectorReturnKernels implements ReturnKernels {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  VectorReturnKernels() {}
+
+  @Override
+  public String getName() {
+    return "vector-" + SPECIES.length() + "x64";
+  }
+
+  @Override
+  public void logReturns(double[] closes, int length, double[] out) {
+    int count = length - 1;
+    int i = 0;
+    for (int bound = SPECIES.loopBound(Math.max(0, count)); i < bound;
+        i += SPECIES.length()) {
+      DoubleVector previous = DoubleVector.fromArray(SPECIES, closes, i);
+      DoubleVector next = DoubleVector.fromArray(SPECIES, closes, i + 1);
+      next.div(previous).lanewise(VectorOperators.LOG).intoArray(out, i);
+    }
+    for (; i < count; i++) {
+      out[i] = Math.log(closes[i + 1] / closes[i]);
+    }
+  }
+
+  @Override
+  public void cumulativeProduct(double[] values, int length, double[] out) {
+    ScalarReturnKernels.INSTANCE.cumulativeProduct(values, length, out);
+  }
+
+  @Override
+  public double mean(double[] values, int length) {
+    DoubleVector sums = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      sums = sums.add(DoubleVector.fromArray(SPECIES, values, i));
+    }
+    double sum = sums.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      sum += values[i];
+    }
+    return sum / length;
+  }
+
+  @Override
+  public double variance(double[] values, int length) {
+    double mean = mean(values, length);
+    DoubleVector means = DoubleVector.broadcast(SPECIES, mean);
+    DoubleVector squares = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector deviations = DoubleVector.fromArray(SPECIES, values, i).sub(means);
+      squares = deviations.fma(deviations, squares);
+    }
+    double sum = squares.reduceLanes(VectorOperators.ADD);
+    for (; i < length; i++) {
+      double deviation = values[i] - mean;
+      sum += deviation * deviation;
+    }
+    return sum / (length - 1);
+  }
+
+  @Override
+  public double dot(double[] a, double[] b, int from, int to) {
+    DoubleVector sums = DoubleVector.zero(SPECIES);
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+      sums = DoubleVector.fromArray(SPECIES, a, i).fma(DoubleVector.fromArray(SPECIES, b, i), sums);
+    }
+    double sum = sums.reduceLanes(VectorOperators.ADD);
+    for (; i < to; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public void annualizedReturns(double[] buyPrices, double[] sellPrices, double[] years,
+      int length, double[] out) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+      DoubleVector ratios = DoubleVector.fromArray(SPECIES, sellPrices, i)
+          .div(DoubleVector.fromArray(SPECIES, buyPrices, i));
+      ratios.lanewise(VectorOperators.LOG)
+          .div(DoubleVector.fromArray(SPECIES, years, i))
+          .lanewise(VectorOperators.EXP)
+          .sub(1)
+          .intoArray(out, i);
+    }
+    for (; i < length; i++) {
+      out[i] = Math.pow(sellPrices[i] / buyPrices[i], 1 / years[i]) - 1;
+    }
+  }
+}
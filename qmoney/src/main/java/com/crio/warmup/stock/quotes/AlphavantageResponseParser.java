@@ -0,0 +1,169 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming reader for TIME_SERIES_DAILY_ADJUSTED responses.
+ *
+ * <p>Days outside the requested range are skipped token by token, without binding them to
+ * objects. Alphavantage lists days newest first, so once the series has been descending and a
+ * day older than the range start shows up, the rest of the payload is not tokenized at all.
+ */
+final class AlphavantageResponseParser {
+
+  static final String TIME_SERIES_FIELD = "Time Series (Daily)";
+
+  private static final Pattern RATE_LIMIT_MESSAGE = Pattern.compile(
+      "call frequency|rate limit|(calls?|requests?) per (second|minute|day)"
+          + "|spreading out your free API requests", Pattern.CASE_INSENSITIVE);
+
+  private AlphavantageResponseParser() {}
+
+  static CandleSeries parse(JsonFactory jsonFactory, String response, LocalDate from,
+      LocalDate to) throws StockQuoteServiceException {
+    if (response == null || response.isEmpty()) {
+      throw new StockQuoteServiceException("Empty response from Alphavantage");
+    }
+    try (JsonParser parser = jsonFactory.createParser(response)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new StockQuoteServiceException("Unexpected response from Alphavantage");
+      }
+      String providerMessage = null;
+      boolean throttled = false;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if (TIME_SERIES_FIELD.equals(field)) {
+          return readTimeSeries(parser, from.toString(), to.toString());
+        }
+        if (isProviderMessage(field) && parser.currentToken() == JsonToken.VALUE_STRING) {
+          providerMessage = field + ": " + parser.getText();
+          throttled = !"Error Message".equals(field) && isRateLimitMessage(parser.getText());
+        }
+        parser.skipChildren();
+      }
+      if (throttled) {
+        throw new StockQuoteThrottledException(providerMessage);
+      }
+      throw new StockQuoteServiceException(providerMessage != null ? providerMessage
+          : "Alphavantage response has no daily time series");
+    } catch (IOException | RuntimeException e) {
+      throw new StockQuoteServiceException("Could not parse Alphavantage response", e);
+    }
+  }
+
+  // Whether the response is the rate-limit notice Alphavantage sends with HTTP 200. Only the
+  // top-level fields before the daily time series are read.
+  static boolean isThrottled(JsonFactory jsonFactory, String response) {
+    if (response == null || response.isEmpty()) {
+      return false;
+    }
+    try (JsonParser parser = jsonFactory.createParser(response)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return false;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if (TIME_SERIES_FIELD.equals(field)) {
+          return false;
+        }
+        if (("Information".equals(field) || "Note".equals(field))
+            && parser.currentToken() == JsonToken.VALUE_STRING
+            && isRateLimitMessage(parser.getText())) {
+          return true;
+        }
+        parser.skipChildren();
+      }
+      return false;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static boolean isProviderMessage(String field) {
+    return "Information".equals(field) || "Note".equals(field) || "Error Message".equals(field);
+  }
+
+  // Alphavantage also uses Information/Note for invalid or demo keys and premium endpoints,
+  // which retrying cannot fix; only its call-frequency texts mean the quota was hit.
+  static boolean isRateLimitMessage(String message) {
+    return RATE_LIMIT_MESSAGE.matcher(message).find();
+  }
+
+  // ISO dates compare lexicographically in calendar order, so keys are range-checked as strings
+  // and only the days that are kept are converted into epoch days.
+  private static CandleSeries readTimeSeries(JsonParser parser, String fromKey, String toKey)
+      throws IOException, StockQuoteServiceException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new StockQuoteServiceException("Unexpected daily time series in response");
+    }
+    CandleSeries.Builder builder = CandleSeries.builder(256);
+    String previousKey = null;
+    boolean descending = true;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      if (previousKey != null) {
+        descending &= key.compareTo(previousKey) < 0;
+      }
+      previousKey = key;
+      parser.nextToken();
+      if (key.compareTo(toKey) > 0) {
+        parser.skipChildren();
+      } else if (key.compareTo(fromKey) >= 0) {
+        readDay(parser, LocalDate.parse(key).toEpochDay(), builder);
+      } else if (descending) {
+        break;
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return builder.build();
+  }
+
+  private static void readDay(JsonParser parser, long epochDay, CandleSeries.Builder builder)
+      throws IOException {
+    double open = Double.NaN;
+    double high = Double.NaN;
+    double low = Double.NaN;
+    double close = Double.NaN;
+    double dividend = Double.NaN;
+    double split = Double.NaN;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "1. open":
+          open = parser.getValueAsDouble(Double.NaN);
+          break;
+        case "2. high":
+          high = parser.getValueAsDouble(Double.NaN);
+          break;
+        case "3. low":
+          low = parser.getValueAsDouble(Double.NaN);
+          break;
+        case "4. close":
+          close = parser.getValueAsDouble(Double.NaN);
+          break;
+        case "7. dividend amount":
+          dividend = parser.getValueAsDouble(Double.NaN);
+          break;
+        case "8. split coefficient":
+          split = parser.getValueAsDouble(Double.NaN);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    builder.add(epochDay, open, high, low, close, dividend, split);
+  }
+}
@@ -2,71 +2,61 @@
 package com.crio.warmup.stock.quotes;
 
 
-import com.crio.warmup.stock.dto.AlphavantageCandle;
-import static java.time.temporal.ChronoUnit.DAYS;
-import static java.time.temporal.ChronoUnit.SECONDS;
-
-import com.crio.warmup.stock.dto.AlphavantageDailyResponse;
 import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 public class AlphavantageService implements StockQuotesService {
 
+  private static final Histogram PARSE_TIME = MetricsRegistry.getDefault().histogram(
+      "qmoney_quote_parse_seconds", "Time spent parsing quote payloads.",
+      "provider", "alphavantage");
+
   private RestTemplate restTemplate;
+  private JsonCodecs jsonCodecs;
 
   public AlphavantageService(RestTemplate restTemplate) {
+    this(restTemplate, JsonCodecs.getDefault());
+  }
+
+  public AlphavantageService(RestTemplate restTemplate, JsonCodecs jsonCodecs) {
     this.restTemplate = restTemplate;
+    this.jsonCodecs = jsonCodecs != null ? jsonCodecs : JsonCodecs.getDefault();
   }
 
   @Override
   public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
       throws JsonProcessingException, StockQuoteServiceException {
-    String uri = buildUri(symbol);
-    String str = restTemplate.getForObject(uri, String.class);
-    // System.out.println(str);
-    ObjectMapper objectMapper = getObjectMapper();
-
-    List<Candle> candlesList = new ArrayList<>();
-
-    try {
-      Map<LocalDate, AlphavantageCandle> candlesMap =
-          objectMapper.readValue(str, AlphavantageDailyResponse.class).getCandles();
-      // System.out.println(candlesMap);
-      for (LocalDate i : candlesMap.keySet()) {
-        if (i.isBefore(to.plusDays(1)) && i.isAfter(from.minusDays(1))) {
-          AlphavantageCandle aCandle = candlesMap.get(i);
-          aCandle.setDate(i);
-          candlesList.add(aCandle);
-        }
-      }
-    } catch (NullPointerException e) {
-      new StockQuoteServiceException("Rate Limit Exceeded!");
-    } 
-
-
-    Collections.sort(candlesList, getComparator());
-
-    return candlesList;
+    return getCandleSeries(symbol, from, to).asCandles();
   }
 
-  private Comparator<Candle> getComparator() {
-    return Comparator.comparing(Candle::getDate);
-  }
-
-  private static ObjectMapper getObjectMapper() {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    return objectMapper;
+  // The full-history payload is streamed: only days within [from, to] are materialised, and they
+  // come out in ascending date order without a sort.
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    String uri = buildUri(symbol);
+    String response;
+    try {
+      response = restTemplate.getForObject(uri, String.class);
+    } catch (HttpClientErrorException.TooManyRequests e) {
+      throw new StockQuoteThrottledException("Alphavantage: too many requests", e);
+    }
+    long parseStart = System.nanoTime();
+    try {
+      return AlphavantageResponseParser.parse(jsonCodecs.getJsonFactory(), response, from, to);
+    } finally {
+      PARSE_TIME.observeNanos(System.nanoTime() - parseStart);
+    }
   }
 
 
@@ -99,6 +89,10 @@ public class AlphavantageService implements StockQuotesService {
   // 2. Use this method in #getStockQuote.
 
   protected String buildUri(String symbol) {
+    return quoteUri(symbol);
+  }
+
+  static String quoteUri(String symbol) {
     String uriTemplate =
         "https://www.alphavantage.co/query?function=TIME_SERIES_DAILY_ADJUSTED&symbol=" + symbol
             + "&outputsize=full&apikey=" + getToken();
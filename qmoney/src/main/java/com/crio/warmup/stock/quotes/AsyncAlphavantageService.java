@@ -0,0 +1,74 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import java.net.http.HttpClient;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Alphavantage provider on the JDK {@link HttpClient}. The full-history payload is streamed
+ * through {@link AlphavantageResponseParser} on the parse executor, as in
+ * {@link AlphavantageService}.
+ */
+public class AsyncAlphavantageService implements AsyncStockQuotesService {
+
+  private static final String PROVIDER = "alphavantage";
+  private static final Histogram PARSE_TIME = MetricsRegistry.getDefault().histogram(
+      "qmoney_quote_parse_seconds", "Time spent parsing quote payloads.",
+      "provider", PROVIDER);
+
+  private final AsyncQuoteRequests requests;
+  private final Executor parseExecutor;
+  private final JsonCodecs jsonCodecs;
+
+  public AsyncAlphavantageService(HttpClient httpClient, Executor parseExecutor,
+      RateLimiter rateLimiter) {
+    this(httpClient, parseExecutor, rateLimiter, JsonCodecs.getDefault());
+  }
+
+  public AsyncAlphavantageService(HttpClient httpClient, Executor parseExecutor,
+      RateLimiter rateLimiter, JsonCodecs jsonCodecs) {
+    this.requests = new AsyncQuoteRequests(httpClient,
+        QuoteHttpClients.Settings.defaults().getReadTimeout(), rateLimiter, PROVIDER);
+    this.parseExecutor = parseExecutor;
+    this.jsonCodecs = jsonCodecs;
+  }
+
+  @Override
+  public CompletableFuture<List<Candle>> getStockQuoteAsync(String symbol, LocalDate from,
+      LocalDate to) {
+    CompletableFuture<CandleSeries> series = getCandleSeriesAsync(symbol, from, to);
+    return AsyncQuoteRequests.cancelsUpstream(series.thenApply(CandleSeries::asCandles), series);
+  }
+
+  @Override
+  public CompletableFuture<CandleSeries> getCandleSeriesAsync(String symbol, LocalDate from,
+      LocalDate to) {
+    CompletableFuture<String> body = requests.get(AlphavantageService.quoteUri(symbol),
+        response -> AlphavantageResponseParser.isThrottled(jsonCodecs.getJsonFactory(), response));
+    return AsyncQuoteRequests.cancelsUpstream(body
+        .thenApplyAsync(response -> parse(response, from, to), parseExecutor)
+        .exceptionallyCompose(error -> CompletableFuture.failedFuture(
+            AsyncQuoteRequests.asStockQuoteServiceException(error, "Alphavantage"))), body);
+  }
+
+  private CandleSeries parse(String body, LocalDate from, LocalDate to) {
+    long start = System.nanoTime();
+    try {
+      return AlphavantageResponseParser.parse(jsonCodecs.getJsonFactory(), body, from, to);
+    } catch (StockQuoteServiceException e) {
+      throw new CompletionException(e);
+    } finally {
+      PARSE_TIME.observeNanos(System.nanoTime() - start);
+    }
+  }
+}
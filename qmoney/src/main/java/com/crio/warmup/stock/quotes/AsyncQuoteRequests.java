@@ -0,0 +1,229 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * GET requests of the async providers: paced by the provider's {@link RateLimiter} without
+ * blocking (a request that has to wait is scheduled for later instead), retried on HTTP 429 or
+ * a provider's throttle body like {@link RateLimitedStockQuotesService}, and recorded under the
+ * same metrics as {@link MeteredStockQuotesService}.
+ */
+final class AsyncQuoteRequests {
+
+  private final HttpClient httpClient;
+  private final Duration timeout;
+  private final RateLimiter rateLimiter;
+  private final String provider;
+  private final Histogram latency;
+  private final Counter throttled;
+  private final Counter failures;
+  private final Counter responseBytes;
+
+  // rateLimiter may be null for unpaced requests.
+  AsyncQuoteRequests(HttpClient httpClient, Duration timeout, RateLimiter rateLimiter,
+      String provider) {
+    this.httpClient = httpClient;
+    this.timeout = timeout;
+    this.rateLimiter = rateLimiter;
+    this.provider = provider;
+    MetricsRegistry registry = MetricsRegistry.getDefault();
+    this.latency = registry.histogram("qmoney_quote_fetch_seconds",
+        "Latency of quote provider calls.", "provider", provider);
+    this.throttled = registry.counter("qmoney_quote_throttled_total",
+        "Quote provider calls rejected for exceeding the rate limit.", "provider", provider);
+    this.failures = registry.counter("qmoney_quote_fetch_failures_total",
+        "Quote provider calls that failed.", "provider", provider);
+    this.responseBytes = QuoteHttpClients.responseBytes(provider);
+  }
+
+  // Completes with the response body, inflated if the provider gzipped it.
+  CompletableFuture<String> get(String uri) {
+    return get(uri, body -> false);
+  }
+
+  // As above, for providers that report throttling in a successful response: a body for which
+  // isThrottled returns true is handled like HTTP 429. Cancelling the returned future cancels the
+  // pending send or the exchange in flight.
+  CompletableFuture<String> get(String uri, Predicate<String> isThrottled) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+        .timeout(timeout)
+        .header("Accept", "application/json")
+        .header("Accept-Encoding", "gzip")
+        .GET()
+        .build();
+    Call call = new Call(request, isThrottled);
+    call.schedule(0);
+    return call.result;
+  }
+
+  // Makes cancelling downstream, a stage derived from upstream, cancel upstream as well.
+  static <T> CompletableFuture<T> cancelsUpstream(CompletableFuture<T> downstream,
+      CompletableFuture<?> upstream) {
+    downstream.whenComplete((value, error) -> {
+      if (downstream.isCancelled()) {
+        upstream.cancel(true);
+      }
+    });
+    return downstream;
+  }
+
+  // One request with its retries. inFlight is the delay or exchange currently pending, so that
+  // cancelling the result reaches it.
+  private final class Call {
+
+    final HttpRequest request;
+    final Predicate<String> isThrottled;
+    final CompletableFuture<String> result = new CompletableFuture<>();
+    volatile CompletableFuture<?> inFlight;
+
+    Call(HttpRequest request, Predicate<String> isThrottled) {
+      this.request = request;
+      this.isThrottled = isThrottled;
+      result.whenComplete((body, error) -> {
+        CompletableFuture<?> pending = inFlight;
+        if (result.isCancelled() && pending != null) {
+          pending.cancel(true);
+        }
+      });
+    }
+
+    void schedule(int attempt) {
+      long waitNanos = rateLimiter != null ? rateLimiter.reserveNanos() : 0;
+      if (waitNanos <= 0) {
+        send(attempt);
+        return;
+      }
+      track(CompletableFuture.runAsync(() -> send(attempt),
+          CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)));
+    }
+
+    private void send(int attempt) {
+      if (result.isDone()) {
+        return;
+      }
+      long start = System.nanoTime();
+      CompletableFuture<HttpResponse<byte[]>> exchange =
+          httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+      track(exchange);
+      exchange.whenComplete((response, error) -> {
+        latency.observeNanos(System.nanoTime() - start);
+        if (error != null) {
+          result.completeExceptionally(error);
+          return;
+        }
+        try {
+          handle(response, attempt);
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      });
+    }
+
+    private void handle(HttpResponse<byte[]> response, int attempt) {
+      int status = response.statusCode();
+      if (status >= 400 && status != 429) {
+        failures.increment();
+        result.completeExceptionally(
+            new StockQuoteServiceException(provider + ": HTTP " + status));
+        return;
+      }
+      String body = null;
+      if (status != 429) {
+        responseBytes.increment(response.body().length);
+        body = body(response);
+      }
+      if (status == 429 || isThrottled.test(body)) {
+        throttled.increment();
+        if (rateLimiter != null) {
+          rateLimiter.onThrottled();
+        }
+        if (rateLimiter != null && attempt < RateLimitedStockQuotesService.DEFAULT_MAX_RETRIES) {
+          schedule(attempt + 1);
+          return;
+        }
+        result.completeExceptionally(
+            new StockQuoteThrottledException(provider + ": too many requests"));
+        return;
+      }
+      if (rateLimiter != null) {
+        rateLimiter.onSuccess();
+      }
+      result.complete(body);
+    }
+
+    // A cancel that raced with starting the step is applied to the step itself.
+    private void track(CompletableFuture<?> step) {
+      inFlight = step;
+      if (result.isCancelled()) {
+        step.cancel(true);
+      }
+    }
+  }
+
+  private static String body(HttpResponse<byte[]> response) {
+    byte[] body = response.body();
+    boolean gzipped = response.headers().firstValue("Content-Encoding")
+        .map(encoding -> encoding.equalsIgnoreCase("gzip")).orElse(false);
+    if (!gzipped) {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Turns any failure into a StockQuoteServiceException, keeping throttles distinguishable.
+  static StockQuoteServiceException asStockQuoteServiceException(Throwable error,
+      String provider) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null
+        ? error.getCause() : error;
+    if (cause instanceof StockQuoteServiceException) {
+      return (StockQuoteServiceException) cause;
+    }
+    return new StockQuoteServiceException(provider + ": " + cause, cause);
+  }
+
+  // Blocking bridge for callers of the synchronous StockQuotesService methods.
+  static <T> T await(CompletableFuture<T> future)
+      throws JsonProcessingException, StockQuoteServiceException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new StockQuoteServiceException("Interrupted while fetching quotes", e);
+    } catch (CancellationException e) {
+      throw new StockQuoteServiceException("Quote fetch cancelled", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof JsonProcessingException) {
+        throw (JsonProcessingException) e.getCause();
+      }
+      throw asStockQuoteServiceException(e.getCause(), "Quote fetch failed");
+    }
+  }
+}
@@ -0,0 +1,42 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking {@link StockQuotesService}: the calling thread only starts the request. The future
+ * completes with the candles sorted by date, or exceptionally with a
+ * {@link StockQuoteServiceException} (a
+ * {@link com.crio.warmup.stock.exception.StockQuoteThrottledException} once the retries for the
+ * provider's rate limit are used up). Cancelling the future cancels the request. The blocking
+ * methods wait for the future.
+ */
+public interface AsyncStockQuotesService extends StockQuotesService {
+
+  CompletableFuture<List<Candle>> getStockQuoteAsync(String symbol, LocalDate from,
+      LocalDate to);
+
+  default CompletableFuture<CandleSeries> getCandleSeriesAsync(String symbol, LocalDate from,
+      LocalDate to) {
+    CompletableFuture<List<Candle>> candles = getStockQuoteAsync(symbol, from, to);
+    return AsyncQuoteRequests.cancelsUpstream(candles.thenApply(CandleSeries::of), candles);
+  }
+
+  @Override
+  default List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return AsyncQuoteRequests.await(getStockQuoteAsync(symbol, from, to));
+  }
+
+  @Override
+  default CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return AsyncQuoteRequests.await(getCandleSeriesAsync(symbol, from, to));
+  }
+}
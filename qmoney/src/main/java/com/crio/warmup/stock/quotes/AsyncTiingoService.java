@@ -0,0 +1,68 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Tiingo provider on the JDK {@link HttpClient}. Requests are multiplexed by the client without
+ * holding a thread while in flight, and responses are parsed on a separate small executor.
+ */
+public class AsyncTiingoService implements AsyncStockQuotesService {
+
+  private static final String PROVIDER = "tiingo";
+  private static final Histogram PARSE_TIME = MetricsRegistry.getDefault().histogram(
+      "qmoney_quote_parse_seconds", "Time spent parsing quote payloads.", "provider", PROVIDER);
+
+  private final AsyncQuoteRequests requests;
+  private final Executor parseExecutor;
+  private final JsonCodecs jsonCodecs;
+
+  public AsyncTiingoService(HttpClient httpClient, Executor parseExecutor,
+      RateLimiter rateLimiter) {
+    this(httpClient, parseExecutor, rateLimiter, JsonCodecs.getDefault());
+  }
+
+  public AsyncTiingoService(HttpClient httpClient, Executor parseExecutor,
+      RateLimiter rateLimiter, JsonCodecs jsonCodecs) {
+    this.requests = new AsyncQuoteRequests(httpClient,
+        QuoteHttpClients.Settings.defaults().getReadTimeout(), rateLimiter, PROVIDER);
+    this.parseExecutor = parseExecutor;
+    this.jsonCodecs = jsonCodecs;
+  }
+
+  @Override
+  public CompletableFuture<List<Candle>> getStockQuoteAsync(String symbol, LocalDate from,
+      LocalDate to) {
+    CompletableFuture<String> body = requests.get(TiingoService.quoteUri(symbol, from, to));
+    return AsyncQuoteRequests.cancelsUpstream(body
+        .thenApplyAsync(this::parse, parseExecutor)
+        .exceptionallyCompose(error -> CompletableFuture.failedFuture(
+            AsyncQuoteRequests.asStockQuoteServiceException(error, "Tiingo"))), body);
+  }
+
+  private List<Candle> parse(String body) {
+    long start = System.nanoTime();
+    try {
+      Candle[] candles = jsonCodecs.tiingoCandlesReader().readValue(body);
+      Arrays.sort(candles, Comparator.comparing(Candle::getDate));
+      return Arrays.asList(candles);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    } finally {
+      PARSE_TIME.observeNanos(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * StockQuotesService decorator that answers ranges from a {@link CandleStore} and only asks the
+ * upstream provider for the days before or after what has already been stored.
+ *
+ * <p>Candles for today (or later) may still change, so the stored range never extends past
+ * yesterday; those days are fetched again on the next request.
+ */
+public class CachingStockQuotesService implements StockQuotesService {
+
+  private static final Logger log = LogManager.getLogger(CachingStockQuotesService.class);
+  private static final String REQUESTS = "qmoney_candle_cache_requests_total";
+  private static final String REQUESTS_HELP =
+      "Candle cache lookups by result: hit, partial (head or tail fetched) or miss.";
+  private static final Counter HITS =
+      MetricsRegistry.getDefault().counter(REQUESTS, REQUESTS_HELP, "result", "hit");
+  private static final Counter PARTIAL_HITS =
+      MetricsRegistry.getDefault().counter(REQUESTS, REQUESTS_HELP, "result", "partial");
+  private static final Counter MISSES =
+      MetricsRegistry.getDefault().counter(REQUESTS, REQUESTS_HELP, "result", "miss");
+
+  private final StockQuotesService delegate;
+  private final CandleStore store;
+  private final Clock clock;
+  // Held across the upstream fetch; a ReentrantLock, unlike a monitor, does not pin a virtual
+  // thread's carrier while it waits on I/O.
+  private final ConcurrentMap<String, ReentrantLock> symbolLocks = new ConcurrentHashMap<>();
+
+  public CachingStockQuotesService(StockQuotesService delegate, CandleStore store) {
+    this(delegate, store, Clock.systemDefaultZone());
+  }
+
+  CachingStockQuotesService(StockQuotesService delegate, CandleStore store, Clock clock) {
+    this.delegate = delegate;
+    this.store = store;
+    this.clock = clock;
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    ReentrantLock lock = symbolLocks.computeIfAbsent(symbol, key -> new ReentrantLock());
+    lock.lock();
+    try {
+      LocalDate settled = LocalDate.now(clock).minusDays(1);
+      CandleStore.Entry cached = readQuietly(symbol);
+
+      if (cached == null) {
+        MISSES.increment();
+        CandleSeries fetched = fetch(symbol, from, to);
+        if (!from.isAfter(settled)) {
+          writeQuietly(symbol, CandleStore.Entry.of(fetched, from, min(to, settled)));
+        }
+        return fetched;
+      }
+
+      LocalDate coveredFrom = cached.getCoveredFrom();
+      LocalDate coveredTo = cached.getCoveredTo();
+      if (cached.covers(from, to)) {
+        HITS.increment();
+        return cached.slice(from, to);
+      }
+      PARTIAL_HITS.increment();
+
+      CandleSeries head = from.isBefore(coveredFrom)
+          ? fetch(symbol, from, coveredFrom.minusDays(1))
+          : CandleSeries.empty();
+      CandleSeries tail = to.isAfter(coveredTo)
+          ? fetch(symbol, coveredTo.plusDays(1), to)
+          : CandleSeries.empty();
+      CandleSeries merged = CandleSeries.concat(head.slice(from, coveredFrom.minusDays(1)),
+          cached.getSeries(), tail.slice(coveredTo.plusDays(1), to));
+
+      LocalDate storeFrom = min(from, coveredFrom);
+      LocalDate storeTo = max(coveredTo, min(to, settled));
+      writeQuietly(symbol, CandleStore.Entry.of(merged, storeFrom, storeTo));
+
+      return merged.slice(from, to);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private CandleSeries fetch(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return CandleSeries.of(delegate.getStockQuote(symbol, from, to));
+  }
+
+  private CandleStore.Entry readQuietly(String symbol) {
+    try {
+      return store.read(symbol);
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable candle store entry for " + symbol, e);
+      return null;
+    }
+  }
+
+  private void writeQuietly(String symbol, CandleStore.Entry entry) {
+    try {
+      store.write(symbol, entry);
+    } catch (IOException e) {
+      log.warn("Could not persist candles for " + symbol, e);
+    }
+  }
+
+  private static LocalDate min(LocalDate a, LocalDate b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  private static LocalDate max(LocalDate a, LocalDate b) {
+    return a.isAfter(b) ? a : b;
+  }
+}
@@ -0,0 +1,205 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Local candle store keeping one columnar file per symbol.
+ *
+ * <p>A file starts with a fixed header (magic, version, row count and the inclusive epoch-day
+ * range already fetched from upstream), followed by one column per field: dates as epoch-day
+ * ints, then open, high, low, close, dividend and split factor as doubles. Rows are stored in
+ * ascending date order. Version 1 files, written before the corporate action columns were kept,
+ * read as missing, so that their symbols are fetched again and rewritten in the current
+ * format.
+ */
+public class CandleStore {
+
+  // Shared by QuoteBackfill and the caching provider from StockQuoteServiceFactory, so that a
+  // backfill warms the store the analytics read from.
+  public static final Path DEFAULT_DIRECTORY =
+      Paths.get(System.getProperty("user.home"), ".qmoney", "candles");
+
+  private static final int MAGIC = 0x51434e44;
+  private static final int VERSION = 2;
+  private static final int HEADER_BYTES = 5 * Integer.BYTES;
+  private static final String SUFFIX = ".candles";
+
+  private final Path directory;
+
+  public CandleStore(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Reads the stored entry for the symbol. The file is memory-mapped and its columns are copied
+   * straight into the primitive arrays of a {@link CandleSeries}.
+   *
+   * @return the entry, or null if nothing has been stored for the symbol yet or only in the
+   *     version 1 format
+   */
+  public Entry read(String symbol) throws IOException {
+    Path file = fileFor(symbol);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+        throw new IOException("Not a candle store file: " + file);
+      }
+      int version = buffer.getInt();
+      if (version == 1) {
+        return null;
+      }
+      if (version != VERSION) {
+        throw new IOException("Unsupported candle store version " + version + ": " + file);
+      }
+      int count = buffer.getInt();
+      int coveredFrom = buffer.getInt();
+      int coveredTo = buffer.getInt();
+      double[][] columns = new double[6][count];
+      if (buffer.remaining() != (long) count * rowBytes(columns.length)) {
+        throw new IOException("Truncated candle store file: " + file);
+      }
+      int[] days = new int[count];
+      buffer.asIntBuffer().get(days);
+      buffer.position(buffer.position() + count * Integer.BYTES);
+      for (double[] column : columns) {
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(buffer.position() + count * Double.BYTES);
+      }
+      return new Entry(coveredFrom, coveredTo, CandleSeries.wrap(days, columns[0], columns[1],
+          columns[2], columns[3], columns[4], columns[5]));
+    }
+  }
+
+  /**
+   * Replaces the stored entry for the symbol. The file is written next to the target and moved
+   * into place, so concurrent readers never observe a partially written file.
+   */
+  public void write(String symbol, Entry entry) throws IOException {
+    CandleSeries series = entry.series;
+    int count = series.size();
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * rowBytes(6));
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(count)
+        .putInt(entry.coveredFrom).putInt(entry.coveredTo);
+    for (int i = 0; i < count; i++) {
+      buffer.putInt(series.getEpochDay(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getOpen(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getHigh(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getLow(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getClose(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getDividend(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(series.getSplitFactor(i));
+    }
+    buffer.flip();
+
+    Path target = fileFor(symbol);
+    Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static int rowBytes(int doubleColumns) {
+    return Integer.BYTES + doubleColumns * Double.BYTES;
+  }
+
+  private Path fileFor(String symbol) {
+    String name = symbol.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9._-]", "_");
+    return directory.resolve(name + SUFFIX);
+  }
+
+  /**
+   * Stored candles of one symbol plus the inclusive date range that has been fetched from
+   * upstream. Days inside the covered range without a candle are non-trading days.
+   */
+  public static final class Entry {
+
+    private final int coveredFrom;
+    private final int coveredTo;
+    private final CandleSeries series;
+
+    Entry(int coveredFrom, int coveredTo, CandleSeries series) {
+      this.coveredFrom = coveredFrom;
+      this.coveredTo = coveredTo;
+      this.series = series;
+    }
+
+    /**
+     * Builds an entry from date-ordered candles, keeping only the rows inside the covered range.
+     */
+    public static Entry of(List<Candle> candles, LocalDate coveredFrom, LocalDate coveredTo) {
+      return of(CandleSeries.of(candles), coveredFrom, coveredTo);
+    }
+
+    public static Entry of(CandleSeries series, LocalDate coveredFrom, LocalDate coveredTo) {
+      return new Entry((int) coveredFrom.toEpochDay(), (int) coveredTo.toEpochDay(),
+          series.slice(coveredFrom, coveredTo));
+    }
+
+    public LocalDate getCoveredFrom() {
+      return LocalDate.ofEpochDay(coveredFrom);
+    }
+
+    public LocalDate getCoveredTo() {
+      return LocalDate.ofEpochDay(coveredTo);
+    }
+
+    public CandleSeries getSeries() {
+      return series;
+    }
+
+    public int size() {
+      return series.size();
+    }
+
+    public boolean covers(LocalDate from, LocalDate to) {
+      return from.toEpochDay() >= coveredFrom && to.toEpochDay() <= coveredTo;
+    }
+
+    /**
+     * Returns the stored candles dated within [from, to], in ascending date order.
+     */
+    public CandleSeries slice(LocalDate from, LocalDate to) {
+      return series.slice(from, to);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * StockQuotesService decorator that coalesces concurrent requests for the same symbol.
+ *
+ * <p>At most one upstream call per symbol is in flight. A request whose range is covered by the
+ * in-flight call waits for it and takes its own slice of the result. Requests that are not
+ * covered join the next flight, whose range grows to the union of theirs, and it is issued as a
+ * single call once the in-flight one finishes.
+ */
+public class CoalescingStockQuotesService implements StockQuotesService {
+
+  private final StockQuotesService delegate;
+  private final ConcurrentMap<String, SymbolState> states = new ConcurrentHashMap<>();
+
+  public CoalescingStockQuotesService(StockQuotesService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    SymbolState state = states.computeIfAbsent(symbol, key -> new SymbolState());
+    Flight flight;
+    synchronized (state) {
+      if (state.inFlight == null) {
+        flight = state.inFlight = new Flight(from, to);
+      } else if (state.inFlight.covers(from, to)) {
+        flight = state.inFlight;
+      } else if (state.next == null) {
+        flight = state.next = new Flight(from, to);
+      } else {
+        flight = state.next;
+        flight.extend(from, to);
+      }
+    }
+
+    while (true) {
+      boolean leader = false;
+      Flight blocking = null;
+      synchronized (state) {
+        if (!flight.started) {
+          if (state.inFlight == flight || state.inFlight == null) {
+            state.inFlight = flight;
+            flight.started = true;
+            leader = true;
+          } else {
+            blocking = state.inFlight;
+          }
+        }
+      }
+      if (leader) {
+        fetch(symbol, state, flight);
+      } else if (blocking != null) {
+        blocking.result.handle((value, error) -> null).join();
+        continue;
+      }
+      return await(flight).slice(from, to);
+    }
+  }
+
+  private void fetch(String symbol, SymbolState state, Flight flight) {
+    CandleSeries candles = null;
+    Throwable failure = null;
+    try {
+      candles = CandleSeries.of(delegate.getStockQuote(symbol, flight.from, flight.to));
+    } catch (Exception | Error e) {
+      failure = e;
+    }
+    synchronized (state) {
+      state.inFlight = state.next;
+      state.next = null;
+    }
+    if (failure != null) {
+      flight.result.completeExceptionally(failure);
+    } else {
+      flight.result.complete(candles);
+    }
+  }
+
+  private static CandleSeries await(Flight flight)
+      throws JsonProcessingException, StockQuoteServiceException {
+    try {
+      return flight.result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StockQuoteServiceException("Interrupted while waiting for quotes", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StockQuoteServiceException) {
+        throw (StockQuoteServiceException) cause;
+      }
+      if (cause instanceof JsonProcessingException) {
+        throw (JsonProcessingException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new StockQuoteServiceException("Failed to fetch quotes", cause);
+    }
+  }
+
+  // Guarded by its own monitor, as are the ranges and started flags of its flights.
+  private static final class SymbolState {
+
+    private Flight inFlight;
+    private Flight next;
+  }
+
+  private static final class Flight {
+
+    private LocalDate from;
+    private LocalDate to;
+    private boolean started;
+    private final CompletableFuture<CandleSeries> result = new CompletableFuture<>();
+
+    Flight(LocalDate from, LocalDate to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    boolean covers(LocalDate from, LocalDate to) {
+      return !from.isBefore(this.from) && !to.isAfter(this.to);
+    }
+
+    void extend(LocalDate from, LocalDate to) {
+      if (from.isBefore(this.from)) {
+        this.from = from;
+      }
+      if (to.isAfter(this.to)) {
+        this.to = to;
+      }
+    }
+  }
+}
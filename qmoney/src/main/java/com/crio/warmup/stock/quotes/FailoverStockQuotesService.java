@@ -0,0 +1,354 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * StockQuotesService that routes to a primary provider and falls back to a secondary one.
+ *
+ * <p>If the primary has not answered within a high percentile of its recent latencies, the same
+ * request is hedged to the secondary and whichever answers first with candles wins. A primary
+ * that is throttled, times out or returns no candles is failed over to the secondary straight
+ * away; any other failure, such as an unknown symbol, is reported as is. Hedges are capped at a
+ * fraction of all requests so a slow primary cannot double the load on the secondary's quota,
+ * and once a race has a winner the losing request is cancelled, interrupting its fetch.
+ *
+ * <p>The primary call runs on a bounded pool so that the caller can stop waiting for it; when
+ * the pool is full it runs on the calling thread, without a hedge. Failovers also run on the
+ * calling thread.
+ *
+ * <p>Both providers' answers are normalized to one shape: date-ordered candles clipped to the
+ * requested range.
+ */
+public class FailoverStockQuotesService implements StockQuotesService {
+
+  public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+  public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+  public static final Duration DEFAULT_INITIAL_HEDGE_DELAY = Duration.ofSeconds(2);
+  public static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(20);
+  public static final int DEFAULT_MAX_THREADS = 32;
+
+  // Latencies kept for the percentile, and how many are needed before it replaces the initial
+  // delay.
+  static final int LATENCY_WINDOW = 128;
+  static final int MIN_LATENCY_SAMPLES = 16;
+
+  private static final Logger log = LogManager.getLogger(FailoverStockQuotesService.class);
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  private static final Executor POOL = newPool(DEFAULT_MAX_THREADS);
+
+  private final StockQuotesService primary;
+  private final StockQuotesService secondary;
+  private final Executor executor;
+  private final double hedgePercentile;
+  private final double maxHedgeRatio;
+  private final long initialHedgeDelayNanos;
+
+  private final long[] latencies = new long[LATENCY_WINDOW];
+  private int latencyCount;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong hedges = new AtomicLong();
+
+  private final Counter hedged;
+  private final Counter failovers;
+  private final Counter secondaryWins;
+
+  public FailoverStockQuotesService(StockQuotesService primary, StockQuotesService secondary,
+      String primaryProvider) {
+    this(primary, secondary, primaryProvider, POOL, DEFAULT_HEDGE_PERCENTILE,
+        DEFAULT_MAX_HEDGE_RATIO, DEFAULT_INITIAL_HEDGE_DELAY, MetricsRegistry.getDefault());
+  }
+
+  public FailoverStockQuotesService(StockQuotesService primary, StockQuotesService secondary,
+      String primaryProvider, Executor executor, double hedgePercentile, double maxHedgeRatio,
+      Duration initialHedgeDelay, MetricsRegistry registry) {
+    this.primary = primary;
+    this.secondary = secondary;
+    this.executor = executor;
+    this.hedgePercentile = hedgePercentile;
+    this.maxHedgeRatio = maxHedgeRatio;
+    this.initialHedgeDelayNanos = initialHedgeDelay.toNanos();
+    this.hedged = registry.counter("qmoney_quote_hedged_total",
+        "Requests hedged to the secondary provider.", "provider", primaryProvider);
+    this.failovers = registry.counter("qmoney_quote_failovers_total",
+        "Requests failed over to the secondary provider.", "provider", primaryProvider);
+    this.secondaryWins = registry.counter("qmoney_quote_secondary_wins_total",
+        "Requests answered by the secondary provider.", "provider", primaryProvider);
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    requests.incrementAndGet();
+    long start = System.nanoTime();
+    CompletableFuture<CandleSeries> first = fetch(primary, symbol, from, to);
+    if (first == null) {
+      first = fetchInline(primary, symbol, from, to);
+    }
+    try {
+      first.get(getHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      CompletableFuture<CandleSeries> second = tryHedge() ? fetch(secondary, symbol, from, to)
+          : null;
+      if (second != null) {
+        hedged.increment();
+        log.debug("Hedging {} to the secondary provider", symbol);
+        return race(first, second, start);
+      }
+      first.handle((value, error) -> null).join();
+    } catch (ExecutionException e) {
+      // Handled below.
+    } catch (InterruptedException e) {
+      first.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new StockQuoteServiceException("Interrupted while waiting for quotes", e);
+    }
+
+    Throwable failure = first.handle((value, error) -> unwrap(error)).join();
+    if (failure != null) {
+      if (!isFailoverCause(failure)) {
+        // Rethrows the primary's failure.
+        return await(first);
+      }
+      failovers.increment();
+      log.warn("Primary provider failed for {}, failing over: {}", symbol, failure.toString());
+      return fromSecondary(symbol, from, to, failure);
+    }
+    recordLatency(System.nanoTime() - start);
+    CandleSeries candles = first.join();
+    if (candles.isEmpty()) {
+      failovers.increment();
+      log.warn("Primary provider returned no candles for {}, failing over", symbol);
+      return fromSecondary(symbol, from, to, null);
+    }
+    return candles;
+  }
+
+  // Current hedge delay: the configured percentile of recent primary latencies.
+  long getHedgeDelayNanos() {
+    long[] window;
+    synchronized (latencies) {
+      if (latencyCount < MIN_LATENCY_SAMPLES) {
+        return initialHedgeDelayNanos;
+      }
+      window = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+    }
+    Arrays.sort(window);
+    int index = (int) Math.ceil(hedgePercentile * window.length) - 1;
+    return Math.max(MIN_HEDGE_DELAY.toNanos(), window[Math.max(0, index)]);
+  }
+
+  private void recordLatency(long nanos) {
+    synchronized (latencies) {
+      latencies[latencyCount++ % LATENCY_WINDOW] = nanos;
+      if (latencyCount == 2 * LATENCY_WINDOW) {
+        latencyCount = LATENCY_WINDOW;
+      }
+    }
+  }
+
+  private boolean tryHedge() {
+    long allowed = (long) (requests.get() * maxHedgeRatio);
+    while (true) {
+      long current = hedges.get();
+      if (current >= Math.max(1, allowed)) {
+        return false;
+      }
+      if (hedges.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  // First non-empty answer wins and the other request is cancelled; if neither has candles, the
+  // primary's outcome is reported.
+  private CandleSeries race(CompletableFuture<CandleSeries> first,
+      CompletableFuture<CandleSeries> second, long start)
+      throws JsonProcessingException, StockQuoteServiceException {
+    CompletableFuture<CandleSeries> winner = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(2);
+    first.whenComplete((candles, error) -> {
+      if (error == null) {
+        recordLatency(System.nanoTime() - start);
+      }
+      offer(winner, candles, pending);
+    });
+    second.whenComplete((candles, error) -> {
+      if (offer(winner, candles, pending)) {
+        secondaryWins.increment();
+      }
+    });
+    CandleSeries candles;
+    try {
+      candles = await(winner);
+    } finally {
+      first.cancel(true);
+      second.cancel(true);
+    }
+    return candles != null ? candles : await(first);
+  }
+
+  private static boolean offer(CompletableFuture<CandleSeries> winner, CandleSeries candles,
+      AtomicInteger pending) {
+    boolean won = candles != null && !candles.isEmpty() && winner.complete(candles);
+    if (pending.decrementAndGet() == 0) {
+      winner.complete(null);
+    }
+    return won;
+  }
+
+  private CandleSeries fromSecondary(String symbol, LocalDate from, LocalDate to,
+      Throwable primaryFailure) throws JsonProcessingException, StockQuoteServiceException {
+    try {
+      CandleSeries candles = await(fetchInline(secondary, symbol, from, to));
+      if (!candles.isEmpty()) {
+        secondaryWins.increment();
+      }
+      return candles;
+    } catch (JsonProcessingException | StockQuoteServiceException | RuntimeException e) {
+      if (primaryFailure != null) {
+        e.addSuppressed(primaryFailure);
+      }
+      throw e;
+    }
+  }
+
+  // Runs on the pool, or returns null if it is full. Cancelling the returned future interrupts
+  // the fetch if it is still running.
+  private CompletableFuture<CandleSeries> fetch(StockQuotesService service, String symbol,
+      LocalDate from, LocalDate to) {
+    CompletableFuture<CandleSeries> result = new CompletableFuture<>();
+    FutureTask<Void> task = new FutureTask<>(() -> {
+      try {
+        result.complete(normalize(service.getCandleSeries(symbol, from, to), from, to));
+      } catch (JsonProcessingException | StockQuoteServiceException | RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return null;
+    });
+    result.whenComplete((candles, error) -> {
+      if (result.isCancelled()) {
+        task.cancel(true);
+      }
+    });
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+    return result;
+  }
+
+  private static CompletableFuture<CandleSeries> fetchInline(StockQuotesService service,
+      String symbol, LocalDate from, LocalDate to) {
+    try {
+      return CompletableFuture.completedFuture(
+          normalize(service.getCandleSeries(symbol, from, to), from, to));
+    } catch (JsonProcessingException | StockQuoteServiceException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  // Throttles and timeouts may clear up on the other provider; other failures, e.g. an invalid
+  // symbol or a malformed request, would fail there too.
+  static boolean isFailoverCause(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof StockQuoteThrottledException || cause instanceof TimeoutException
+          || cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Date-ordered and clipped to [from, to], whatever order and range the provider returned.
+  static CandleSeries normalize(CandleSeries candles, LocalDate from, LocalDate to) {
+    if (candles == null || candles.isEmpty()) {
+      return CandleSeries.empty();
+    }
+    for (int i = 1; i < candles.size(); i++) {
+      if (candles.getEpochDay(i) < candles.getEpochDay(i - 1)) {
+        List<Candle> sorted = new ArrayList<>(candles.asCandles());
+        sorted.sort(Comparator.comparing(Candle::getDate));
+        candles = CandleSeries.of(sorted);
+        break;
+      }
+    }
+    return candles.slice(from, to);
+  }
+
+  // Outcome of a fetch; a failure is rethrown with its original type.
+  private static CandleSeries await(CompletableFuture<CandleSeries> future)
+      throws JsonProcessingException, StockQuoteServiceException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StockQuoteServiceException("Interrupted while waiting for quotes", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StockQuoteServiceException) {
+        throw (StockQuoteServiceException) cause;
+      }
+      if (cause instanceof JsonProcessingException) {
+        throw (JsonProcessingException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new StockQuoteServiceException("Failed to fetch quotes", cause);
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause() : error;
+  }
+
+  private static Executor newPool(int maxThreads) {
+    // Idle-trimmed, and bounded: a call that finds every thread busy runs on its caller.
+    return new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS,
+        new SynchronousQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "quote-failover-" + THREAD_COUNT.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+}
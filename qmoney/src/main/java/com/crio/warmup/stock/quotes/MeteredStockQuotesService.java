@@ -0,0 +1,69 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.Gauge;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * StockQuotesService decorator that records, per provider, how long each upstream call takes,
+ * how many are in flight, and how many fail or are throttled.
+ */
+public class MeteredStockQuotesService implements StockQuotesService {
+
+  private final StockQuotesService delegate;
+  private final Histogram latency;
+  private final Gauge inFlight;
+  private final Counter failures;
+  private final Counter throttled;
+
+  public MeteredStockQuotesService(StockQuotesService delegate, String provider) {
+    this(delegate, provider, MetricsRegistry.getDefault());
+  }
+
+  public MeteredStockQuotesService(StockQuotesService delegate, String provider,
+      MetricsRegistry registry) {
+    this.delegate = delegate;
+    this.latency = registry.histogram("qmoney_quote_fetch_seconds",
+        "Latency of quote provider calls.", "provider", provider);
+    this.inFlight = registry.gauge("qmoney_quote_fetches_in_flight",
+        "Quote provider calls currently in progress.", "provider", provider);
+    this.failures = registry.counter("qmoney_quote_fetch_failures_total",
+        "Quote provider calls that failed.", "provider", provider);
+    this.throttled = registry.counter("qmoney_quote_throttled_total",
+        "Quote provider calls rejected for exceeding the rate limit.", "provider", provider);
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    inFlight.increment();
+    long start = System.nanoTime();
+    try {
+      return delegate.getCandleSeries(symbol, from, to);
+    } catch (StockQuoteThrottledException e) {
+      throttled.increment();
+      throw e;
+    } catch (JsonProcessingException | StockQuoteServiceException | RuntimeException e) {
+      failures.increment();
+      throw e;
+    } finally {
+      latency.observeNanos(System.nanoTime() - start);
+      inFlight.decrement();
+    }
+  }
+}
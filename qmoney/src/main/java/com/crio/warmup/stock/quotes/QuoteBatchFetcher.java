@@ -0,0 +1,136 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipelines the single-symbol fetches of a batch over the caller's executor.
+ *
+ * <p>The calling thread drains the batch together with at most {@code parallelism - 1} helpers
+ * submitted to that executor, so no more than {@code parallelism} fetches of the batch are ever
+ * in flight. A batch always makes progress even when the executor is busy with other work (or
+ * the caller is one of its threads): helpers that have not started by the time the caller runs
+ * out of work are simply dropped. With a parallelism of 1 every fetch runs on the calling
+ * thread. The first failure stops further fetches and is rethrown to the caller.
+ */
+final class QuoteBatchFetcher {
+
+  private QuoteBatchFetcher() {}
+
+  static Map<String, CandleSeries> fetchAll(Map<String, DateRange> requests,
+      SeriesFetcher fetcher, Executor executor, int parallelism)
+      throws JsonProcessingException, StockQuoteServiceException {
+    List<Map.Entry<String, DateRange>> entries = new ArrayList<>(requests.entrySet());
+    int count = entries.size();
+    CandleSeries[] results = new CandleSeries[count];
+    AtomicInteger next = new AtomicInteger();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Runnable drain = () -> {
+      int index;
+      while (failure.get() == null && (index = next.getAndIncrement()) < count) {
+        Map.Entry<String, DateRange> entry = entries.get(index);
+        try {
+          results[index] = fetcher.fetch(entry.getKey(), entry.getValue().getFrom(),
+              entry.getValue().getTo());
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+    };
+
+    List<Helper> helpers = new ArrayList<>();
+    try {
+      for (int i = 1; executor != null && i < Math.min(parallelism, count); i++) {
+        Helper helper = new Helper(drain);
+        executor.execute(helper);
+        helpers.add(helper);
+      }
+    } catch (RejectedExecutionException e) {
+      // Fewer helpers; the caller drains the rest.
+    }
+    drain.run();
+    awaitHelpers(helpers);
+
+    Throwable error = failure.get();
+    if (error != null) {
+      rethrow(error);
+    }
+    Map<String, CandleSeries> quotes = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      quotes.put(entries.get(i).getKey(), results[i]);
+    }
+    return quotes;
+  }
+
+  // Helpers that have not started yet are no longer needed; running ones finish their fetch.
+  private static void awaitHelpers(List<Helper> helpers) throws StockQuoteServiceException {
+    try {
+      for (Helper helper : helpers) {
+        if (!helper.claimed.compareAndSet(false, true)) {
+          helper.done.await();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StockQuoteServiceException("Interrupted while fetching quotes", e);
+    }
+  }
+
+  private static void rethrow(Throwable error)
+      throws JsonProcessingException, StockQuoteServiceException {
+    if (error instanceof StockQuoteServiceException) {
+      throw (StockQuoteServiceException) error;
+    }
+    if (error instanceof JsonProcessingException) {
+      throw (JsonProcessingException) error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    throw new StockQuoteServiceException("Failed to fetch quotes", error);
+  }
+
+  private static final class Helper implements Runnable {
+
+    private final Runnable drain;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    Helper(Runnable drain) {
+      this.drain = drain;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        drain.run();
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+
+  interface SeriesFetcher {
+    CandleSeries fetch(String symbol, LocalDate from, LocalDate to) throws Exception;
+  }
+}
@@ -0,0 +1,314 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP clients for the quote providers.
+ *
+ * <p>Templates built here share a pool of keep-alive connections, so consecutive calls to a
+ * provider reuse an open TLS session instead of handshaking each time. Every call has explicit
+ * connect, pool-wait and read timeouts, responses are requested gzip-compressed and inflated
+ * transparently, and connections idle for longer than {@link Settings#idleTimeout} are closed in
+ * the background. Response bodies are counted in {@link #RESPONSE_BYTES} as they come off the
+ * wire, before they are inflated, labelled with the provider named by the host.
+ *
+ * <p>The non-blocking providers share one JDK {@link HttpClient} instead, which multiplexes
+ * concurrent requests over HTTP/2 on a couple of threads, and parse responses on a small
+ * separate compute pool so parsing never stalls the client's I/O threads. They count their
+ * bodies in the same metric.
+ */
+public final class QuoteHttpClients {
+
+  static final int HTTP_THREADS = 2;
+  static final int PARSE_THREADS = Math.max(1, Math.min(4,
+      Runtime.getRuntime().availableProcessors()));
+
+  static final String RESPONSE_BYTES = "qmoney_quote_response_bytes_total";
+  static final String RESPONSE_BYTES_HELP =
+      "Bytes of quote payloads received, before decompression.";
+
+  private static final ConcurrentMap<String, Counter> RESPONSE_BYTE_COUNTERS =
+      new ConcurrentHashMap<>();
+
+  private static volatile RestTemplate shared;
+  private static volatile HttpClient sharedHttpClient;
+  private static volatile ExecutorService parseExecutor;
+
+  private QuoteHttpClients() {}
+
+  /**
+   * Template shared by every provider, created on first use with the default {@link Settings}.
+   */
+  public static RestTemplate getRestTemplate() {
+    RestTemplate current = shared;
+    if (current == null) {
+      synchronized (QuoteHttpClients.class) {
+        if (shared == null) {
+          shared = newRestTemplate(Settings.defaults());
+        }
+        current = shared;
+      }
+    }
+    return current;
+  }
+
+  // JDK client shared by the async providers, created on first use with the default Settings.
+  public static HttpClient getHttpClient() {
+    HttpClient current = sharedHttpClient;
+    if (current == null) {
+      synchronized (QuoteHttpClients.class) {
+        if (sharedHttpClient == null) {
+          sharedHttpClient = newHttpClient(Settings.defaults(),
+              Executors.newFixedThreadPool(HTTP_THREADS, new DaemonThreadFactory("quote-http")));
+        }
+        current = sharedHttpClient;
+      }
+    }
+    return current;
+  }
+
+  // Small pool the async providers parse response bodies on.
+  public static Executor getParseExecutor() {
+    ExecutorService current = parseExecutor;
+    if (current == null) {
+      synchronized (QuoteHttpClients.class) {
+        if (parseExecutor == null) {
+          parseExecutor = Executors.newFixedThreadPool(PARSE_THREADS,
+              new DaemonThreadFactory("quote-parse"));
+        }
+        current = parseExecutor;
+      }
+    }
+    return current;
+  }
+
+  public static HttpClient newHttpClient(Settings settings, Executor executor) {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(settings.connectTimeout)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .executor(executor)
+        .build();
+  }
+
+  public static RestTemplate newRestTemplate(Settings settings) {
+    HttpComponentsClientHttpRequestFactory requestFactory =
+        new HttpComponentsClientHttpRequestFactory(newHttpClient(settings));
+    requestFactory.setConnectTimeout(toMillis(settings.connectTimeout));
+    requestFactory.setConnectionRequestTimeout(toMillis(settings.poolTimeout));
+    requestFactory.setReadTimeout(toMillis(settings.readTimeout));
+    return new RestTemplate(requestFactory);
+  }
+
+  static CloseableHttpClient newHttpClient(Settings settings) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+        settings.connectionTimeToLive.toMillis(), TimeUnit.MILLISECONDS);
+    connectionManager.setMaxTotal(settings.maxConnections);
+    connectionManager.setDefaultMaxPerRoute(settings.maxConnectionsPerHost);
+    // Re-check a pooled connection before reuse only if it sat idle for a while.
+    connectionManager.setValidateAfterInactivity(2_000);
+
+    HttpClientBuilder builder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectTimeout(toMillis(settings.connectTimeout))
+            .setConnectionRequestTimeout(toMillis(settings.poolTimeout))
+            .setSocketTimeout(toMillis(settings.readTimeout))
+            .setContentCompressionEnabled(true)
+            .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(settings.idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+        .setUserAgent("qmoney")
+        // Added first, so it wraps the entity before the content decoder inflates it.
+        .addInterceptorFirst(QuoteHttpClients::countResponseBytes);
+    return builder.build();
+  }
+
+  static Counter responseBytes(String provider) {
+    return RESPONSE_BYTE_COUNTERS.computeIfAbsent(provider, key -> MetricsRegistry.getDefault()
+        .counter(RESPONSE_BYTES, RESPONSE_BYTES_HELP, "provider", key));
+  }
+
+  // "api.tiingo.com" -> "tiingo", matching the labels of the async providers. IP literals are
+  // kept whole.
+  static String providerOf(String host) {
+    String[] labels = host.split("\\.");
+    if (labels.length < 2 || host.indexOf(':') >= 0
+        || Character.isDigit(host.charAt(host.length() - 1))) {
+      return host;
+    }
+    return labels[labels.length - 2];
+  }
+
+  private static void countResponseBytes(HttpResponse response, HttpContext context) {
+    HttpEntity entity = response.getEntity();
+    HttpHost target = HttpClientContext.adapt(context).getTargetHost();
+    if (entity != null && target != null) {
+      response.setEntity(
+          new CountingEntity(entity, responseBytes(providerOf(target.getHostName()))));
+    }
+  }
+
+  private static int toMillis(Duration duration) {
+    return (int) Math.min(Integer.MAX_VALUE, duration.toMillis());
+  }
+
+  private static final class CountingEntity extends HttpEntityWrapper {
+
+    private final Counter bytes;
+
+    CountingEntity(HttpEntity entity, Counter bytes) {
+      super(entity);
+      this.bytes = bytes;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      InputStream content = super.getContent();
+      return content == null ? null : new CountingInputStream(content, bytes);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      try (InputStream content = getContent()) {
+        if (content != null) {
+          content.transferTo(out);
+        }
+      }
+    }
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private final Counter bytes;
+
+    CountingInputStream(InputStream in, Counter bytes) {
+      super(in);
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        bytes.increment();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        bytes.increment(read);
+      }
+      return read;
+    }
+  }
+
+  private static final class DaemonThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    DaemonThreadFactory(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  /**
+   * Pool sizes and timeouts. The defaults allow a few concurrent calls per provider host, which
+   * is all the rate limiters let through anyway.
+   */
+  public static final class Settings {
+
+    private int maxConnections = 32;
+    private int maxConnectionsPerHost = 8;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration poolTimeout = Duration.ofSeconds(10);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    public static Settings defaults() {
+      return new Settings();
+    }
+
+    public Settings maxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    public Settings maxConnectionsPerHost(int maxConnectionsPerHost) {
+      this.maxConnectionsPerHost = maxConnectionsPerHost;
+      return this;
+    }
+
+    public Settings connectTimeout(Duration connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    // How long a call waits for a free pooled connection.
+    public Settings poolTimeout(Duration poolTimeout) {
+      this.poolTimeout = poolTimeout;
+      return this;
+    }
+
+    public Settings readTimeout(Duration readTimeout) {
+      this.readTimeout = readTimeout;
+      return this;
+    }
+
+    public Duration getReadTimeout() {
+      return readTimeout;
+    }
+
+    public Settings idleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    // Upper bound on a connection's lifetime, however often it is reused.
+    public Settings connectionTimeToLive(Duration connectionTimeToLive) {
+      this.connectionTimeToLive = connectionTimeToLive;
+      return this;
+    }
+  }
+}
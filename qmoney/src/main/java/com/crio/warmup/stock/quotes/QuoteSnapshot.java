@@ -0,0 +1,104 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable, in-memory candles for a set of symbols, resolved once and then read concurrently.
+ *
+ * <p>Series are stored whole, one per symbol; callers slice out the dates they need, so any
+ * number of portfolios can be valued against one snapshot without further provider calls.
+ */
+public final class QuoteSnapshot {
+
+  private final Map<String, CandleSeries> series;
+
+  private QuoteSnapshot(Map<String, CandleSeries> series) {
+    this.series = series;
+  }
+
+  public static QuoteSnapshot of(Map<String, CandleSeries> series) {
+    return new QuoteSnapshot(Collections.unmodifiableMap(new HashMap<>(series)));
+  }
+
+  /**
+   * Fetches every request with one {@link StockQuotesService#getStockQuotes} batch on the calling
+   * thread. Symbols the service leaves out of its batch result are fetched one by one.
+   */
+  public static QuoteSnapshot load(StockQuotesService stockQuotesService,
+      Map<String, DateRange> requests) throws JsonProcessingException, StockQuoteServiceException {
+    return load(stockQuotesService, requests, null, 1);
+  }
+
+  /**
+   * Like {@link #load(StockQuotesService, Map)}, with up to {@code parallelism} of the batch's
+   * fetches in flight on the caller's executor.
+   */
+  public static QuoteSnapshot load(StockQuotesService stockQuotesService,
+      Map<String, DateRange> requests, Executor executor, int parallelism)
+      throws JsonProcessingException, StockQuoteServiceException {
+    Map<String, CandleSeries> series = new HashMap<>();
+    if (!requests.isEmpty()) {
+      Map<String, CandleSeries> batch = executor == null || parallelism <= 1
+          ? stockQuotesService.getStockQuotes(requests)
+          : stockQuotesService.getStockQuotes(requests, executor, parallelism);
+      if (batch != null) {
+        series.putAll(batch);
+      }
+    }
+    for (Map.Entry<String, DateRange> request : requests.entrySet()) {
+      if (series.get(request.getKey()) == null) {
+        DateRange range = request.getValue();
+        series.put(request.getKey(), CandleSeries.of(stockQuotesService.getStockQuote(
+            request.getKey(), range.getFrom(), range.getTo())));
+      }
+    }
+    return new QuoteSnapshot(Collections.unmodifiableMap(series));
+  }
+
+  /**
+   * Adds one range per symbol to {@code requests}, widened to cover each trade's purchase date
+   * through {@code endDate}, so each symbol is fetched once however many trades hold it.
+   */
+  public static Map<String, DateRange> addRequests(Map<String, DateRange> requests,
+      Iterable<PortfolioTrade> trades, LocalDate endDate) {
+    for (PortfolioTrade trade : trades) {
+      requests.merge(trade.getSymbol(), DateRange.of(trade.getPurchaseDate(), endDate),
+          (range, other) -> range.union(other.getFrom(), other.getTo()));
+    }
+    return requests;
+  }
+
+  public static Map<String, DateRange> requests(Iterable<PortfolioTrade> trades,
+      LocalDate endDate) {
+    return addRequests(new LinkedHashMap<>(), trades, endDate);
+  }
+
+  // The symbol's series, or an empty one when the snapshot has no candles for it.
+  public CandleSeries get(String symbol) {
+    CandleSeries candles = series.get(symbol);
+    return candles != null ? candles : CandleSeries.empty();
+  }
+
+  public boolean contains(String symbol) {
+    return series.containsKey(symbol);
+  }
+
+  public int size() {
+    return series.size();
+  }
+
+  public Map<String, CandleSeries> asMap() {
+    return series;
+  }
+}
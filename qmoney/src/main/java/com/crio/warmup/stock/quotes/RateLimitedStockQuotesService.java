@@ -0,0 +1,70 @@
+
+package com.crio.warmup.stock.quotes;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.LocalDate;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * StockQuotesService decorator that takes a permit from the provider's {@link RateLimiter}
+ * before every call. A throttled call slows the limiter down and is retried, so a burst over
+ * quota delays the calculation instead of aborting it.
+ */
+public class RateLimitedStockQuotesService implements StockQuotesService {
+
+  public static final int DEFAULT_MAX_RETRIES = 5;
+
+  private static final Logger log = LogManager.getLogger(RateLimitedStockQuotesService.class);
+
+  private final StockQuotesService delegate;
+  private final RateLimiter rateLimiter;
+  private final int maxRetries;
+
+  public RateLimitedStockQuotesService(StockQuotesService delegate, RateLimiter rateLimiter) {
+    this(delegate, rateLimiter, DEFAULT_MAX_RETRIES);
+  }
+
+  public RateLimitedStockQuotesService(StockQuotesService delegate, RateLimiter rateLimiter,
+      int maxRetries) {
+    this.delegate = delegate;
+    this.rateLimiter = rateLimiter;
+    this.maxRetries = maxRetries;
+  }
+
+  @Override
+  public List<Candle> getStockQuote(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return getCandleSeries(symbol, from, to).asCandles();
+  }
+
+  @Override
+  public CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    for (int attempt = 0; ; attempt++) {
+      try {
+        rateLimiter.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StockQuoteServiceException("Interrupted while waiting for rate limit", e);
+      }
+      try {
+        CandleSeries candles = CandleSeries.of(delegate.getStockQuote(symbol, from, to));
+        rateLimiter.onSuccess();
+        return candles;
+      } catch (StockQuoteThrottledException e) {
+        rateLimiter.onThrottled();
+        if (attempt >= maxRetries) {
+          throw e;
+        }
+        log.warn("Throttled fetching {} (attempt {}), retrying at {}/s", symbol, attempt + 1,
+            rateLimiter.getRate());
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+
+package com.crio.warmup.stock.quotes;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that paces the calls made against one provider's quota.
+ *
+ * <p>Callers that find the bucket empty are not rejected: each one reserves the next token and
+ * sleeps until it is due, so concurrent callers are served in arrival order. The refill rate
+ * adapts to the provider. {@link #onThrottled()} halves it and puts the bucket into debt for an
+ * exponentially growing pause, while {@link #onSuccess()} recovers the rate in small additive
+ * steps up to the configured maximum.
+ */
+public class RateLimiter {
+
+  static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+  static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final double maxRate;
+  private final double minRate;
+  private final double burst;
+  private final LongSupplier nanoClock;
+  private final Sleeper sleeper;
+
+  private double rate;
+  private double tokens;
+  private long lastRefill;
+  private int consecutiveThrottles;
+
+  public RateLimiter(double permitsPerSecond, int burst) {
+    this(permitsPerSecond, burst, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+  }
+
+  RateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock, Sleeper sleeper) {
+    if (!(permitsPerSecond > 0) || burst < 1) {
+      throw new IllegalArgumentException(
+          "Invalid rate limit: " + permitsPerSecond + "/s, burst " + burst);
+    }
+    this.maxRate = permitsPerSecond;
+    this.minRate = permitsPerSecond / 64;
+    this.burst = burst;
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+    this.rate = permitsPerSecond;
+    this.tokens = burst;
+    this.lastRefill = nanoClock.getAsLong();
+  }
+
+  /**
+   * Blocks until a permit is available.
+   */
+  public void acquire() throws InterruptedException {
+    long waitNanos = reserveNanos();
+    if (waitNanos > 0) {
+      sleeper.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Reserves a permit without blocking and returns how many nanoseconds the caller must wait
+   * before using it (0 if it is available now). For callers that schedule the call instead of
+   * sleeping.
+   */
+  public synchronized long reserveNanos() {
+    refill();
+    tokens -= 1;
+    return tokens >= 0 ? 0 : (long) (-tokens / rate * NANOS_PER_SECOND);
+  }
+
+  public synchronized void onSuccess() {
+    refill();
+    consecutiveThrottles = 0;
+    rate = Math.min(maxRate, rate + maxRate / 16);
+  }
+
+  public synchronized void onThrottled() {
+    refill();
+    long backoffNanos = Math.min(MAX_BACKOFF.toNanos(),
+        INITIAL_BACKOFF.toNanos() << Math.min(consecutiveThrottles, 16));
+    consecutiveThrottles++;
+    rate = Math.max(minRate, rate / 2);
+    tokens = Math.min(tokens, 0) - rate * backoffNanos / NANOS_PER_SECOND;
+  }
+
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  public double getMaxRate() {
+    return maxRate;
+  }
+
+  private void refill() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(burst, tokens + (now - lastRefill) * rate / NANOS_PER_SECOND);
+    lastRefill = now;
+  }
+
+  interface Sleeper {
+    void sleep(long nanos) throws InterruptedException;
+  }
+}
@@ -1,6 +1,13 @@
 
 package com.crio.warmup.stock.quotes;
 
+import com.crio.warmup.stock.json.JsonCodecs;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import org.springframework.web.client.RestTemplate;
 
 public enum StockQuoteServiceFactory {
@@ -11,6 +18,15 @@ public enum StockQuoteServiceFactory {
 
   INSTANCE;
 
+  // Default pacing per provider: Alphavantage's free key allows 5 calls a minute, Tiingo's
+  // hourly quota is far larger but still worth spreading out.
+  public static final double ALPHAVANTAGE_PERMITS_PER_SECOND = 5.0 / 60;
+  public static final int ALPHAVANTAGE_BURST = 5;
+  public static final double TIINGO_PERMITS_PER_SECOND = 10;
+  public static final int TIINGO_BURST = 10;
+
+  private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
   // TODO: CRIO_TASK_MODULE_ADDITIONAL_REFACTOR
   // Make sure that you have implemented TiingoService and AlphavantageService
   // as per the instructions and the tests are passing for them.
@@ -23,14 +39,91 @@ public enum StockQuoteServiceFactory {
   // ./gradlew test --tests StockQuoteServiceFactory
 
   public StockQuotesService getService(String provider, RestTemplate restTemplate) {
+    return getService(provider, restTemplate, JsonCodecs.getDefault());
+  }
+
+  public StockQuotesService getService(String provider, RestTemplate restTemplate,
+      JsonCodecs jsonCodecs) {
 
-    if (provider == null) {
-      return new AlphavantageService(restTemplate);
+    if (isTiingo(provider)) {
+      return new TiingoService(restTemplate, jsonCodecs);
     }
-    if (provider.equalsIgnoreCase("tiingo")) {
-      return new TiingoService(restTemplate);
+    return new AlphavantageService(restTemplate, jsonCodecs);
+
+  }
+
+  // Provider service over the shared pooled, keep-alive client from QuoteHttpClients.
+  public StockQuotesService getService(String provider) {
+    return getService(provider, QuoteHttpClients.getRestTemplate());
+  }
+
+  // Same provider selection as above, with calls paced by the provider's shared rate limiter and
+  // throttled calls retried. Each provider call is recorded in the default metrics registry.
+  public StockQuotesService getRateLimitedService(String provider, RestTemplate restTemplate) {
+    return new RateLimitedStockQuotesService(new MeteredStockQuotesService(
+        getService(provider, restTemplate), providerKey(provider)), getRateLimiter(provider));
+  }
+
+  public StockQuotesService getRateLimitedService(String provider) {
+    return getRateLimitedService(provider, QuoteHttpClients.getRestTemplate());
+  }
+
+  // Rate-limited primary provider that hedges slow calls to, and fails over to, the secondary.
+  public StockQuotesService getFailoverService(String primary, String secondary) {
+    return new FailoverStockQuotesService(getRateLimitedService(primary),
+        getRateLimitedService(secondary), providerKey(primary));
+  }
+
+  // Non-blocking provider on the shared JDK HttpClient, paced by the provider's shared limiter
+  // and retried on throttling without tying up a thread while it waits.
+  public AsyncStockQuotesService getAsyncService(String provider) {
+    HttpClient httpClient = QuoteHttpClients.getHttpClient();
+    Executor parseExecutor = QuoteHttpClients.getParseExecutor();
+    RateLimiter rateLimiter = getRateLimiter(provider);
+    if (isTiingo(provider)) {
+      return new AsyncTiingoService(httpClient, parseExecutor, rateLimiter);
     }
-    return new AlphavantageService(restTemplate);
+    return new AsyncAlphavantageService(httpClient, parseExecutor, rateLimiter);
+  }
+
+  // One limiter per provider, shared by every service created for it, since the quota belongs
+  // to the API key rather than to a service instance.
+  public RateLimiter getRateLimiter(String provider) {
+    return rateLimiters.computeIfAbsent(providerKey(provider), key -> isTiingo(key)
+        ? new RateLimiter(TIINGO_PERMITS_PER_SECOND, TIINGO_BURST)
+        : new RateLimiter(ALPHAVANTAGE_PERMITS_PER_SECOND, ALPHAVANTAGE_BURST));
+  }
 
+  // Replaces the provider's limiter; services created afterwards use the new limit.
+  public void setRateLimit(String provider, double permitsPerSecond, int burst) {
+    rateLimiters.put(providerKey(provider), new RateLimiter(permitsPerSecond, burst));
+  }
+
+  private static boolean isTiingo(String provider) {
+    return provider != null && provider.equalsIgnoreCase("tiingo");
+  }
+
+  private static String providerKey(String provider) {
+    return isTiingo(provider) ? "tiingo" : "alphavantage";
+  }
+
+  // Same provider selection as above, but reads are served from the given on-disk store and
+  // only the missing head or tail of a range is fetched from the provider. Concurrent reads of
+  // one symbol are coalesced into a single fetch.
+  public StockQuotesService getService(String provider, RestTemplate restTemplate,
+      CandleStore candleStore) {
+    return new CoalescingStockQuotesService(
+        new CachingStockQuotesService(getRateLimitedService(provider, restTemplate), candleStore));
+  }
+
+  // Same as above, on the store in CandleStore.DEFAULT_DIRECTORY that QuoteBackfill fills.
+  public StockQuotesService getCachingService(String provider) {
+    CandleStore candleStore;
+    try {
+      candleStore = new CandleStore(CandleStore.DEFAULT_DIRECTORY);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return getService(provider, QuoteHttpClients.getRestTemplate(), candleStore);
   }
 }
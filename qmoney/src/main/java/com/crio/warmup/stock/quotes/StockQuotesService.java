@@ -1,11 +1,15 @@
 package com.crio.warmup.stock.quotes;
 
 import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 public interface StockQuotesService {
 
@@ -16,4 +20,27 @@ public interface StockQuotesService {
       , StockQuoteServiceException
   ;
 
+  // Same contract as #getStockQuote, returned as primitive columns. Implementations that hold
+  // candles in a CandleSeries already should override this to avoid materialising Candle objects.
+  default CandleSeries getCandleSeries(String symbol, LocalDate from, LocalDate to)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return CandleSeries.of(getStockQuote(symbol, from, to));
+  }
+
+  // Candles for several symbols at once, keyed by symbol. The default fetches the symbols one
+  // after another with #getCandleSeries on the calling thread; a provider with a multi-symbol
+  // endpoint should override it.
+  default Map<String, CandleSeries> getStockQuotes(Map<String, DateRange> requests)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return QuoteBatchFetcher.fetchAll(requests, this::getCandleSeries, null, 1);
+  }
+
+  // Like #getStockQuotes(Map), with at most parallelism fetches in flight: the calling thread
+  // plus helpers run on the caller's executor.
+  default Map<String, CandleSeries> getStockQuotes(Map<String, DateRange> requests,
+      Executor executor, int parallelism)
+      throws JsonProcessingException, StockQuoteServiceException {
+    return QuoteBatchFetcher.fetchAll(requests, this::getCandleSeries, executor, parallelism);
+  }
+
 }
@@ -2,25 +2,36 @@
 package com.crio.warmup.stock.quotes;
 
 import com.crio.warmup.stock.dto.Candle;
-import com.crio.warmup.stock.dto.TiingoCandle;
 import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.crio.warmup.stock.metrics.Histogram;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 public class TiingoService implements StockQuotesService {
 
+  private static final Histogram PARSE_TIME = MetricsRegistry.getDefault().histogram(
+      "qmoney_quote_parse_seconds", "Time spent parsing quote payloads.", "provider", "tiingo");
+
   private RestTemplate restTemplate;
+  private JsonCodecs jsonCodecs;
 
   protected TiingoService(RestTemplate restTemplate) {
+    this(restTemplate, JsonCodecs.getDefault());
+  }
+
+  protected TiingoService(RestTemplate restTemplate, JsonCodecs jsonCodecs) {
     this.restTemplate = restTemplate;
+    this.jsonCodecs = jsonCodecs != null ? jsonCodecs : JsonCodecs.getDefault();
   }
 
   @Override
@@ -30,11 +41,14 @@ public class TiingoService implements StockQuotesService {
     try {
       String uri = buildUri(symbol, from, to);
       String str = restTemplate.getForObject(uri, String.class);
-      ObjectMapper objectMapper = getObjectMapper();
-      Candle[] candles = objectMapper.readValue(str, TiingoCandle[].class);
+      long parseStart = System.nanoTime();
+      Candle[] candles = jsonCodecs.tiingoCandlesReader().readValue(str);
+      PARSE_TIME.observeNanos(System.nanoTime() - parseStart);
       candleList = Arrays.asList(candles);
+    } catch (HttpClientErrorException.TooManyRequests e) {
+      throw new StockQuoteThrottledException("Tiingo: too many requests", e);
     } catch (RuntimeException re) {
-      throw new StockQuoteServiceException("API Limit Exceeded!!");
+      throw new StockQuoteServiceException("API Limit Exceeded!!", re);
     }
     Collections.sort(candleList, getComparator());
 
@@ -45,12 +59,6 @@ public class TiingoService implements StockQuotesService {
     return Comparator.comparing(Candle::getDate);
   }
 
-  private static ObjectMapper getObjectMapper() {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    return objectMapper;
-  }
-
 
   // TODO: CRIO_TASK_MODULE_ADDITIONAL_REFACTOR
   // Implement getStockQuote method below that was also declared in the interface.
@@ -66,6 +74,10 @@ public class TiingoService implements StockQuotesService {
   // TODO: CRIO_TASK_MODULE_ADDITIONAL_REFACTOR
   // Write a method to create appropriate url to call the Tiingo API.
   protected String buildUri(String symbol, LocalDate startDate, LocalDate endDate) {
+    return quoteUri(symbol, startDate, endDate);
+  }
+
+  static String quoteUri(String symbol, LocalDate startDate, LocalDate endDate) {
     String uriTemplate = "https://api.tiingo.com/tiingo/daily/" + symbol + "/prices?" + "startDate="
         + startDate + "&endDate=" + endDate + "&token=" + getToken();
     return uriTemplate;
@@ -0,0 +1,132 @@
+
+package com.crio.warmup.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.CandleStore;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteBackfillTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2019-01-01");
+  private static final LocalDate TO = LocalDate.parse("2019-01-30");
+  private static final Clock CLOCK =
+      Clock.fixed(LocalDate.parse("2019-01-21").atStartOfDay().toInstant(ZoneOffset.UTC),
+          ZoneOffset.UTC);
+
+  @Mock
+  private StockQuotesService service;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void fetchesInChunksUpToYesterday() throws Exception {
+    answerWithDailyCandles();
+    CandleStore store = new CandleStore(directory);
+
+    QuoteBackfill.Result result =
+        new QuoteBackfill(service, store, 2, 7, CLOCK).run(List.of("AAPL"), FROM, TO);
+
+    assertEquals(1, result.getFetched());
+    assertEquals(3, result.getCalls());
+    CandleStore.Entry entry = store.read("AAPL");
+    assertEquals(FROM, entry.getCoveredFrom());
+    assertEquals(LocalDate.parse("2019-01-20"), entry.getCoveredTo());
+    assertEquals(20, entry.size());
+    verify(service).getStockQuote("AAPL", LocalDate.parse("2019-01-15"),
+        LocalDate.parse("2019-01-20"));
+  }
+
+  @Test
+  void resumesAroundTheStoredRange() throws Exception {
+    answerWithDailyCandles();
+    CandleStore store = new CandleStore(directory);
+    LocalDate storedFrom = LocalDate.parse("2019-01-08");
+    LocalDate storedTo = LocalDate.parse("2019-01-12");
+    store.write("AAPL", CandleStore.Entry.of(candles(storedFrom, storedTo), storedFrom,
+        storedTo));
+
+    QuoteBackfill backfill = new QuoteBackfill(service, store, 1, 0, CLOCK);
+    assertEquals(2, backfill.run(List.of("AAPL"), FROM, TO).getCalls());
+
+    CandleStore.Entry entry = store.read("AAPL");
+    assertEquals(20, entry.size());
+    assertEquals(FROM, entry.getSeries().getDate(0));
+    verify(service).getStockQuote("AAPL", FROM, storedFrom.minusDays(1));
+    verify(service).getStockQuote("AAPL", storedTo.plusDays(1), LocalDate.parse("2019-01-20"));
+
+    QuoteBackfill.Result rerun = backfill.run(List.of("AAPL"), FROM, TO);
+    assertEquals(1, rerun.getUpToDate());
+    assertEquals(0, rerun.getCalls());
+  }
+
+  @Test
+  void failedSymbolsAreReportedAndPickedUpByTheNextRun() throws Exception {
+    answerWithDailyCandles();
+    Mockito.doThrow(new StockQuoteServiceException("Rate limit exceeded!!"))
+        .doAnswer(invocation -> candles(invocation.getArgument(1), invocation.getArgument(2)))
+        .when(service).getStockQuote(eq("MSFT"), any(), any());
+    QuoteBackfill backfill = new QuoteBackfill(service, new CandleStore(directory), 2, 0, CLOCK);
+
+    QuoteBackfill.Result first = backfill.run(List.of("AAPL", "MSFT"), FROM, TO);
+    assertEquals(1, first.getFetched());
+    assertTrue(first.getFailures().containsKey("MSFT"));
+
+    QuoteBackfill.Result second = backfill.run(List.of("AAPL", "MSFT"), FROM, TO);
+    assertEquals(1, second.getFetched());
+    assertEquals(1, second.getUpToDate());
+    assertTrue(second.getFailures().isEmpty());
+    verify(service, times(1)).getStockQuote(eq("AAPL"), any(), any());
+  }
+
+  @Test
+  void parsesInlineAndFileSymbolLists() throws Exception {
+    assertEquals(List.of("AAPL", "MSFT"), QuoteBackfill.parseSymbols("aapl, MSFT,,aapl"));
+
+    Path file = Files.write(directory.resolve("symbols.txt"),
+        List.of("# universe", "GOOGL", "", "ibm  # legacy"));
+    assertEquals(List.of("GOOGL", "IBM"), QuoteBackfill.parseSymbols("@" + file));
+  }
+
+  private void answerWithDailyCandles() throws Exception {
+    Mockito.lenient().doAnswer(invocation -> candles(invocation.getArgument(1),
+        invocation.getArgument(2))).when(service).getStockQuote(any(), any(), any());
+  }
+
+  private static List<Candle> candles(LocalDate from, LocalDate to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen(100.0);
+      candle.setHigh(110.0);
+      candle.setLow(90.0);
+      candle.setClose(100.0 + day.getDayOfMonth());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,124 @@
+
+package com.crio.warmup.stock.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesTest {
+
+  @Test
+  void sliceUsesInclusiveDateBounds() {
+    CandleSeries series = CandleSeries.of(weekdayCandles("2019-01-01", "2019-01-31"));
+
+    CandleSeries slice = series.slice(LocalDate.parse("2019-01-05"),
+        LocalDate.parse("2019-01-14"));
+
+    assertEquals(6, slice.size());
+    assertEquals(LocalDate.parse("2019-01-07"), slice.getDate(0));
+    assertEquals(LocalDate.parse("2019-01-14"), slice.getDate(5));
+    assertEquals(14.0, slice.getClose(5), 0.0001);
+    assertTrue(series.slice(LocalDate.parse("2019-01-05"), LocalDate.parse("2019-01-06"))
+        .isEmpty());
+  }
+
+  @Test
+  void candleViewRoundTripsWithoutCopy() {
+    CandleSeries series = CandleSeries.of(weekdayCandles("2019-01-01", "2019-01-31"));
+
+    List<Candle> candles = series.asCandles();
+
+    assertEquals(series.size(), candles.size());
+    assertEquals(LocalDate.parse("2019-01-31"), candles.get(candles.size() - 1).getDate());
+    assertSame(series, CandleSeries.of(candles));
+  }
+
+  @Test
+  void missingPricesAreExposedAsNull() {
+    TiingoCandle candle = new TiingoCandle();
+    candle.setDate(LocalDate.parse("2019-01-02"));
+    candle.setClose(10.0);
+    List<Candle> candles = new ArrayList<>();
+    candles.add(candle);
+
+    CandleSeries series = CandleSeries.of(candles);
+
+    assertTrue(Double.isNaN(series.getOpen(0)));
+    assertNull(series.asCandles().get(0).getOpen());
+    assertEquals(10.0, series.asCandles().get(0).getClose(), 0.0001);
+  }
+
+  @Test
+  void adjustmentIndexSpansSplitsAndDividends() {
+    // A 2-for-1 split on the third day and a 1.04 dividend, 2% of the close, on the fourth.
+    double[] closes = {100, 102, 51, 52, 53};
+    List<Candle> candles = new ArrayList<>();
+    CandleSeries.Builder descending = CandleSeries.builder(closes.length);
+    for (int i = 0; i < closes.length; i++) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(LocalDate.parse("2019-01-07").plusDays(i));
+      candle.setOpen(closes[i]);
+      candle.setClose(closes[i]);
+      candle.setSplitFactor(i == 2 ? 2.0 : 1.0);
+      candle.setDivCash(i == 3 ? 1.04 : 0.0);
+      candles.add(candle);
+      int row = closes.length - 1 - i;
+      descending.add(17_903 + row, 0, 0, 0, closes[row], row == 3 ? 1.04 : Double.NaN,
+          row == 2 ? 2 : Double.NaN);
+    }
+
+    CandleSeries series = CandleSeries.of(candles);
+    CandleSeries joined = CandleSeries.concat(series.subSeries(0, 2), series.subSeries(2, 5));
+
+    assertTrue(series.hasAdjustments());
+    assertEquals(2.04, series.getAdjustment(0, 4), 1e-12);
+    assertEquals(1.02, series.getAdjustment(2, 4), 1e-12);
+    assertEquals(1, series.getAdjustment(3, 4), 1e-12);
+    for (CandleSeries copy : List.of(series.subSeries(1, 5), joined.subSeries(1, 5),
+        series.subSeries(1, 5).compact(), descending.build().subSeries(1, 5))) {
+      assertEquals(2.04, copy.getAdjustment(0, 3), 1e-12);
+      assertEquals(2, copy.getSplitFactor(1), 0);
+      assertEquals(1.04, copy.getDividend(2), 0);
+    }
+    assertEquals(1.04, series.asCandles().get(3).getDividend(), 0);
+    assertEquals(1, series.asCandles().get(3).getSplitFactor(), 0);
+  }
+
+  @Test
+  void seriesWithoutCorporateActionsKeepNoAdjustmentColumns() {
+    CandleSeries series = CandleSeries.of(weekdayCandles("2019-01-01", "2019-01-31"));
+
+    assertFalse(series.hasAdjustments());
+    assertEquals(1, series.getAdjustment(0, series.size() - 1), 0);
+    assertEquals(0, series.getDividend(0), 0);
+    assertEquals(1, series.getSplitFactor(0), 0);
+    assertNull(series.asCandles().get(0).getDividend());
+    assertFalse(CandleSeries.wrap(new int[] {1}, new double[1], new double[1], new double[1],
+        new double[] {10}, new double[] {0}, new double[] {1}).hasAdjustments());
+  }
+
+  private static List<Candle> weekdayCandles(String from, String to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = LocalDate.parse(from); !day.isAfter(LocalDate.parse(to));
+        day = day.plusDays(1)) {
+      if (day.getDayOfWeek().getValue() >= 6) {
+        continue;
+      }
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen((double) day.getDayOfMonth());
+      candle.setHigh((double) day.getDayOfMonth());
+      candle.setLow((double) day.getDayOfMonth());
+      candle.setClose((double) day.getDayOfMonth());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
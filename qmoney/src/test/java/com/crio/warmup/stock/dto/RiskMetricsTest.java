@@ -0,0 +1,86 @@
+
+package com.crio.warmup.stock.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.crio.warmup.stock.json.JsonCodecs;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class RiskMetricsTest {
+
+  private static final LocalDate START = LocalDate.parse("2019-01-01");
+
+  @Test
+  void matchesTwoPassStatistics() {
+    double[] closes = {102, 99, 104, 101, 97, 103, 108, 105};
+    CandleSeries candles = series(100, closes);
+    double riskFreeRate = 0.02;
+
+    RiskMetrics risk = RiskMetrics.of(candles, riskFreeRate);
+
+    double[] returns = new double[closes.length];
+    double previous = 100;
+    for (int i = 0; i < closes.length; i++) {
+      returns[i] = closes[i] / previous - 1;
+      previous = closes[i];
+    }
+    double mean = 0;
+    for (double value : returns) {
+      mean += value / returns.length;
+    }
+    double variance = 0;
+    double downside = 0;
+    double dailyRiskFree = riskFreeRate / RiskMetrics.TRADING_DAYS;
+    for (double value : returns) {
+      variance += (value - mean) * (value - mean) / (returns.length - 1);
+      downside += Math.pow(Math.min(0, value - dailyRiskFree), 2) / returns.length;
+    }
+    double annualization = Math.sqrt(RiskMetrics.TRADING_DAYS);
+    assertEquals(closes.length, risk.getDays());
+    assertEquals(Math.sqrt(variance) * annualization, risk.getVolatility(), 1e-12);
+    assertEquals((mean - dailyRiskFree) / Math.sqrt(variance) * annualization,
+        risk.getSharpeRatio(), 1e-12);
+    assertEquals((mean - dailyRiskFree) / Math.sqrt(downside) * annualization,
+        risk.getSortinoRatio(), 1e-12);
+    assertEquals(1 - 97.0 / 104, risk.getMaxDrawdown(), 1e-12);
+  }
+
+  @Test
+  void splitIsADrawdownOnlyAtQuotedPrices() {
+    // 2-for-1 split on the second day.
+    CandleSeries.Builder builder = CandleSeries.builder(2);
+    builder.add(START.toEpochDay(), 100, 100, 100, 100, Double.NaN, Double.NaN);
+    builder.add(START.plusDays(1).toEpochDay(), 50, 50, 50, 50, Double.NaN, 2);
+    CandleSeries candles = builder.build();
+
+    assertEquals(0.5, RiskMetrics.of(candles, 0).getMaxDrawdown(), 1e-12);
+    assertEquals(0, RiskMetrics.of(candles, 0, true).getMaxDrawdown(), 1e-12);
+  }
+
+  @Test
+  void undefinedRatiosAreLeftOutOfTheJson() throws Exception {
+    RiskMetrics risk = RiskMetrics.of(series(100, new double[] {101, 102, 103}), 0);
+    assertEquals(0, risk.getMaxDrawdown());
+    assertNull(risk.getSortinoRatio());
+
+    String json = JsonCodecs.getDefault().annualizedReturnWriter()
+        .writeValueAsString(new AnnualizedReturn("MSFT", 0.5, 0.03).withRisk(
+            RiskMetrics.of(series(100, new double[] {103}), 0)));
+
+    assertEquals("{\"symbol\":\"MSFT\",\"annualizedReturn\":0.5,\"totalReturns\":0.03,"
+        + "\"risk\":{\"days\":1,\"maxDrawdown\":0.0}}", json);
+  }
+
+  private static CandleSeries series(double firstOpen, double[] closes) {
+    CandleSeries.Builder builder = CandleSeries.builder(closes.length);
+    double open = firstOpen;
+    for (int i = 0; i < closes.length; i++) {
+      builder.add(START.plusDays(i).toEpochDay(), open, Math.max(open, closes[i]),
+          Math.min(open, closes[i]), closes[i]);
+      open = closes[i];
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,54 @@
+
+package com.crio.warmup.stock.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class JsonCodecsTest {
+
+  private final JsonCodecs jsonCodecs = JsonCodecs.getDefault();
+
+  @Test
+  void readersBindJavaTimeTypes() throws Exception {
+    PortfolioTrade[] trades = jsonCodecs.portfolioTradesReader().readValue(
+        "[{\"symbol\":\"AAPL\",\"quantity\":100,\"tradeType\":\"BUY\","
+            + "\"purchaseDate\":\"2019-01-02\"}]");
+    TiingoCandle[] candles = jsonCodecs.tiingoCandlesReader().readValue(
+        "[{\"date\":\"2019-01-02T00:00:00.000Z\",\"close\":157.92,\"open\":154.89}]");
+
+    assertEquals(LocalDate.parse("2019-01-02"), trades[0].getPurchaseDate());
+    assertEquals(LocalDate.parse("2019-01-02"), candles[0].getDate());
+    assertEquals(154.89, candles[0].getOpen(), 0.0001);
+  }
+
+  @Test
+  void tiingoReaderKeepsAdjustedFields() throws Exception {
+    TiingoCandle[] candles = jsonCodecs.tiingoCandlesReader().readValue(
+        "[{\"date\":\"2020-08-31T00:00:00.000Z\",\"close\":129.04,\"adjClose\":127.1,"
+            + "\"adjOpen\":125.7,\"divCash\":0.0,\"splitFactor\":4.0}]");
+
+    assertEquals(127.1, candles[0].getAdjClose(), 0.0001);
+    assertEquals(125.7, candles[0].getAdjOpen(), 0.0001);
+    assertEquals(0.0, candles[0].getDividend(), 0);
+    assertEquals(4.0, candles[0].getSplitFactor(), 0);
+  }
+
+  @Test
+  void annualizedReturnWriterRoundTrips() throws Exception {
+    String json = jsonCodecs.annualizedReturnWriter()
+        .writeValueAsString(new AnnualizedReturn("MSFT", 0.5, 0.25));
+
+    assertEquals("{\"symbol\":\"MSFT\",\"annualizedReturn\":0.5,\"totalReturns\":0.25}", json);
+  }
+
+  @Test
+  void defaultInstanceIsShared() {
+    assertSame(JsonCodecs.getDefault().getObjectMapper(), jsonCodecs.getObjectMapper());
+  }
+}
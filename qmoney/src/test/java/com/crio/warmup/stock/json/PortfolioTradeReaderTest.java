@@ -0,0 +1,66 @@
+
+package com.crio.warmup.stock.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PortfolioTradeReaderTest {
+
+  private static final String TRADES = "[{\"symbol\":\"AAPL\",\"quantity\":100,\"tradeType\":"
+      + "\"BUY\",\"purchaseDate\":\"2019-01-02\"},{\"symbol\":\"MSFT\",\"quantity\":10,"
+      + "\"tradeType\":\"BUY\",\"purchaseDate\":\"2019-01-02\"},{\"symbol\":\"GOOGL\","
+      + "\"quantity\":50,\"tradeType\":\"BUY\",\"purchaseDate\":\"2019-01-02\"}]";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void readsArrayFromPathInChunks() throws Exception {
+    Path file = tempDir.resolve("trades.json");
+    Files.writeString(file, TRADES);
+
+    try (PortfolioTradeReader reader = PortfolioTradeReader.open(file)) {
+      List<PortfolioTrade> first = reader.nextChunk(2);
+      List<PortfolioTrade> second = reader.nextChunk(2);
+
+      assertEquals(2, first.size());
+      assertEquals("MSFT", first.get(1).getSymbol());
+      assertEquals("GOOGL", second.get(0).getSymbol());
+      assertEquals(LocalDate.parse("2019-01-02"), second.get(0).getPurchaseDate());
+      assertTrue(reader.nextChunk(2).isEmpty());
+    }
+  }
+
+  @Test
+  void readsNewlineDelimitedTradesLazily() throws Exception {
+    String lines = "{\"symbol\":\"AAPL\",\"quantity\":1,\"purchaseDate\":\"2019-01-02\"}\n"
+        + "{\"symbol\":\"MSFT\",\"quantity\":2,\"purchaseDate\":\"2019-01-03\"}\n";
+
+    try (PortfolioTradeReader reader = PortfolioTradeReader.open(
+        new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)))) {
+      assertEquals(List.of("AAPL", "MSFT"),
+          reader.stream().map(PortfolioTrade::getSymbol).collect(Collectors.toList()));
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  void emptyArrayHasNoTrades() throws Exception {
+    try (PortfolioTradeReader reader = PortfolioTradeReader.open(
+        new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)))) {
+      assertFalse(reader.hasNext());
+    }
+  }
+}
@@ -0,0 +1,78 @@
+
+package com.crio.warmup.stock.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+  @Test
+  void sameNameAndLabelsReturnTheSameMetric() {
+    MetricsRegistry registry = new MetricsRegistry();
+
+    Counter tiingo = registry.counter("requests_total", "Requests.", "provider", "tiingo");
+    Counter other = registry.counter("requests_total", "Requests.", "provider", "alphavantage");
+
+    assertSame(tiingo, registry.counter("requests_total", "Requests.", "provider", "tiingo"));
+    assertTrue(tiingo != other);
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.gauge("requests_total", "Requests.", "provider", "tiingo"));
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.counter("requests_total", "Requests.", "provider"));
+  }
+
+  @Test
+  void prometheusExporterWritesTextFormat() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("qmoney_requests_total", "Requests.", "provider", "tiingo").increment(3);
+    registry.gauge("qmoney_in_flight", "In flight.").set(2);
+    Histogram latency =
+        registry.histogram("qmoney_latency_seconds", "Latency.", new double[] {0.1, 1});
+    latency.observe(0.05);
+    latency.observe(0.5);
+    latency.observe(5);
+
+    String text = new PrometheusExporter(registry).scrape();
+
+    assertEquals("# HELP qmoney_in_flight In flight.\n"
+        + "# TYPE qmoney_in_flight gauge\n"
+        + "qmoney_in_flight 2\n"
+        + "# HELP qmoney_latency_seconds Latency.\n"
+        + "# TYPE qmoney_latency_seconds histogram\n"
+        + "qmoney_latency_seconds_bucket{le=\"0.1\"} 1\n"
+        + "qmoney_latency_seconds_bucket{le=\"1.0\"} 2\n"
+        + "qmoney_latency_seconds_bucket{le=\"+Inf\"} 3\n"
+        + "qmoney_latency_seconds_sum 5.55\n"
+        + "qmoney_latency_seconds_count 3\n"
+        + "# HELP qmoney_requests_total Requests.\n"
+        + "# TYPE qmoney_requests_total counter\n"
+        + "qmoney_requests_total{provider=\"tiingo\"} 3\n", text);
+  }
+
+  @Test
+  void jmxExporterPublishesSamplesAsAttributes() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.crio.warmup.stock:type=Metrics,name=test");
+    JmxExporter.register(registry, server, name);
+    try {
+      registry.counter("qmoney_requests_total", "Requests.", "provider", "tiingo").increment();
+
+      assertEquals(1.0,
+          server.getAttribute(name, "qmoney_requests_total{provider=\"tiingo\"}"));
+      assertEquals(1, server.getMBeanInfo(name).getAttributes().length);
+      assertThrows(ReflectionException.class,
+          () -> server.invoke(name, "reset", new Object[0], new String[0]));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+}
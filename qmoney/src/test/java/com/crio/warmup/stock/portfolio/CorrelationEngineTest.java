@@ -0,0 +1,151 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.quotes.QuoteSnapshot;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CorrelationEngineTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2015-01-01");
+
+  @Mock
+  private StockQuotesService stockQuotesService;
+
+  @Test
+  void tiledMatrixMatchesPairwiseDefinition() {
+    // Partial edge tiles and several day blocks.
+    int symbols = 2 * CorrelationEngine.TILE + 22;
+    int days = 2 * CorrelationEngine.DAY_BLOCK + 177;
+    Random random = new Random(11);
+    double[] market = new double[days];
+    for (int day = 0; day < days; day++) {
+      market[day] = random.nextGaussian() * 0.01;
+    }
+    Map<String, CandleSeries> series = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    double[][] closes = new double[symbols][days];
+    for (int s = 0; s < symbols; s++) {
+      double beta = random.nextDouble() * 2 - 0.5;
+      double price = 50 + random.nextDouble() * 100;
+      CandleSeries.Builder builder = CandleSeries.builder(days);
+      for (int day = 0; day < days; day++) {
+        price *= Math.exp(beta * market[day] + random.nextGaussian() * 0.01);
+        closes[s][day] = price;
+        builder.add(FROM.toEpochDay() + day, price, price, price, price);
+      }
+      names.add("S" + s);
+      series.put("S" + s, builder.build());
+    }
+    LocalDate to = FROM.plusDays(days - 1);
+
+    for (ReturnKernels kernels : List.of(ReturnKernels.scalar(), ReturnKernels.getDefault())) {
+      CorrelationMatrix matrix = new CorrelationEngine(stockQuotesService,
+          new ForkJoinPool(4), kernels).compute(QuoteSnapshot.of(series), names, FROM, to);
+
+      assertEquals(days - 1, matrix.getObservations());
+      for (int i = 0; i < symbols; i += 7) {
+        for (int j = 0; j < symbols; j += 5) {
+          double[] expected = covarianceAndCorrelation(closes[i], closes[j]);
+          assertEquals(expected[0], matrix.getCovariance(i, j), 1e-12);
+          assertEquals(expected[1], matrix.getCorrelation(names.get(i), names.get(j)), 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  void alignsSeriesOnTheUnionOfTradingDays() throws Exception {
+    LocalDate to = FROM.plusDays(9);
+    CandleSeries.Builder base = CandleSeries.builder(10);
+    CandleSeries.Builder doubled = CandleSeries.builder(10);
+    CandleSeries.Builder gapped = CandleSeries.builder(10);
+    double[] prices = {10, 11, 10.5, 12, 11, 13, 12.5, 14, 13, 15};
+    for (int day = 0; day < prices.length; day++) {
+      long epochDay = FROM.toEpochDay() + day;
+      base.add(epochDay, prices[day], prices[day], prices[day], prices[day]);
+      doubled.add(epochDay, 0, 0, 0, 2 * prices[day]);
+      if (day != 4) {
+        gapped.add(epochDay, 0, 0, 0, prices[day]);
+      }
+    }
+    stub("BASE", base.build());
+    stub("DOUBLED", doubled.build());
+    stub("GAPPED", gapped.build());
+    stub("EMPTY", CandleSeries.empty());
+
+    CorrelationMatrix matrix = new PortfolioManagerImpl(stockQuotesService)
+        .calculateCorrelationMatrix(List.of("BASE", "DOUBLED", "GAPPED", "EMPTY"), FROM, to);
+
+    assertEquals(9, matrix.getObservations());
+    assertEquals(1.0, matrix.getCorrelation("BASE", "DOUBLED"), 1e-12);
+    assertEquals(matrix.getCovariance("BASE", "BASE"), matrix.getCovariance("DOUBLED", "BASE"),
+        1e-15);
+    double withGap = matrix.getCorrelation("GAPPED", "BASE");
+    assertTrue(withGap > 0.5 && withGap < 1);
+    assertEquals(withGap, matrix.getCorrelation("BASE", "GAPPED"));
+    assertTrue(Double.isNaN(matrix.getCorrelation("EMPTY", "BASE")));
+  }
+
+  @Test
+  void packsTheUpperTriangleRowByRow() {
+    int size = 4;
+    List<Integer> indexes = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      for (int j = i; j < size; j++) {
+        indexes.add(CorrelationMatrix.packedIndex(size, i, j));
+      }
+    }
+    List<Integer> sorted = new ArrayList<>(indexes);
+    Collections.sort(sorted);
+    assertEquals(sorted, indexes);
+    assertEquals(List.of(0, 9), List.of(indexes.get(0), indexes.get(indexes.size() - 1)));
+  }
+
+  private void stub(String symbol, CandleSeries candles) throws Exception {
+    Mockito.doReturn(candles.asCandles()).when(stockQuotesService)
+        .getStockQuote(eq(symbol), any(), any());
+  }
+
+  private static double[] covarianceAndCorrelation(double[] a, double[] b) {
+    int n = a.length - 1;
+    double[] x = new double[n];
+    double[] y = new double[n];
+    double meanX = 0;
+    double meanY = 0;
+    for (int t = 0; t < n; t++) {
+      x[t] = Math.log(a[t + 1] / a[t]);
+      y[t] = Math.log(b[t + 1] / b[t]);
+      meanX += x[t] / n;
+      meanY += y[t] / n;
+    }
+    double sxy = 0;
+    double sxx = 0;
+    double syy = 0;
+    for (int t = 0; t < n; t++) {
+      sxy += (x[t] - meanX) * (y[t] - meanY);
+      sxx += (x[t] - meanX) * (x[t] - meanX);
+      syy += (y[t] - meanY) * (y[t] - meanY);
+    }
+    return new double[] {sxy / (n - 1), sxy / Math.sqrt(sxx * syy)};
+  }
+}
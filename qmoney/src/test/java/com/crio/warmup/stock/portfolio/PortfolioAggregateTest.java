@@ -0,0 +1,171 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.PortfolioTrade.TradeType;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.json.PortfolioTradeReader;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioAggregateTest {
+
+  private static final LocalDate BUY_DATE = LocalDate.parse("2019-01-02");
+  private static final LocalDate SELL_DATE = LocalDate.parse("2019-07-01");
+  private static final LocalDate END_DATE = LocalDate.parse("2020-01-02");
+  private static final double DELTA = 1e-9;
+
+  private static final List<Candle> AAPL = List.of(
+      candle(BUY_DATE, 100), candle(SELL_DATE, 120), candle(END_DATE, 150));
+  private static final List<Candle> MSFT = List.of(candle(BUY_DATE, 200), candle(END_DATE, 180));
+
+  @Mock
+  private StockQuotesService stockQuotesService;
+
+  @Test
+  void netsBuyAndSellLotsPerSymbol() {
+    PortfolioAggregate aggregate = book().stream()
+        .collect(PortfolioAggregate.collector(quotes()::get, END_DATE));
+
+    PortfolioAggregate.Position aapl = aggregate.getPositions().get("AAPL");
+    assertEquals(6, aapl.getNetQuantity());
+    assertEquals(1000, aapl.getInvested(), DELTA);
+    assertEquals(480, aapl.getProceeds(), DELTA);
+    assertEquals(900, aapl.getMarketValue(), DELTA);
+    assertEquals(0.38, aapl.getTotalReturn(), DELTA);
+    assertEquals(0.38, aapl.getAnnualizedReturn(), DELTA);
+    assertEquals(-0.1, aggregate.getPositions().get("MSFT").getTotalReturn(), DELTA);
+
+    assertEquals(2000, aggregate.getInvested(), DELTA);
+    assertEquals(2280, aggregate.getValue(), DELTA);
+    assertEquals(0.14, aggregate.getTotalReturn(), DELTA);
+    assertEquals(0.14, aggregate.getAnnualizedReturn(), DELTA);
+  }
+
+  @Test
+  void combiningPartialAggregatesMatchesASinglePass() {
+    List<PortfolioTrade> trades = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      trades.addAll(book());
+    }
+    Map<String, CandleSeries> quotes = quotes();
+    PortfolioAggregate sequential = trades.stream()
+        .collect(PortfolioAggregate.collector(quotes::get, END_DATE));
+
+    List<PortfolioAggregate> parts = IntStream.range(0, 7)
+        .mapToObj(part -> IntStream.range(0, trades.size()).filter(i -> i % 7 == part)
+            .mapToObj(trades::get)
+            .collect(PortfolioAggregate.collector(quotes::get, END_DATE)))
+        .collect(Collectors.toList());
+    PortfolioAggregate merged = new PortfolioAggregate();
+    for (int i = parts.size() - 1; i >= 0; i--) {
+      merged.combine(parts.get(i));
+    }
+    PortfolioAggregate parallel = trades.parallelStream()
+        .collect(PortfolioAggregate.collector(quotes::get, END_DATE));
+
+    assertEquals(3000, sequential.getPositions().get("AAPL").getNetQuantity());
+    assertEquals(sequential.getTotalReturn(), merged.getTotalReturn(), DELTA);
+    assertEquals(sequential.getAnnualizedReturn(), merged.getAnnualizedReturn(), DELTA);
+    assertEquals(sequential.getValue(), parallel.getValue(), 1e-6);
+    assertEquals(sequential.getAnnualizedReturn(), parallel.getAnnualizedReturn(), DELTA);
+  }
+
+  @Test
+  void managerAggregatesTheBookFromOneFetchPerSymbol() throws Exception {
+    Mockito.doReturn(AAPL).when(stockQuotesService).getStockQuote(eq("AAPL"), any(), any());
+    Mockito.doReturn(MSFT).when(stockQuotesService).getStockQuote(eq("MSFT"), any(), any());
+
+    PortfolioAggregate aggregate =
+        new PortfolioManagerImpl(stockQuotesService).aggregatePortfolio(book(), END_DATE);
+
+    assertEquals(0.14, aggregate.getTotalReturn(), DELTA);
+    Mockito.verify(stockQuotesService).getStockQuote("AAPL", BUY_DATE, END_DATE);
+    Mockito.verify(stockQuotesService).getStockQuote("MSFT", BUY_DATE, END_DATE);
+  }
+
+  @Test
+  void returnsAreAdjustedForSplitsAndDividendsOnlyOnRequest() throws Exception {
+    // 4-for-1 split mid-way, then a 1% dividend: 100 -> 4 shares at 26 -> 4.04 shares at 26.
+    TiingoCandle split = (TiingoCandle) candle(SELL_DATE, 26);
+    split.setSplitFactor(4.0);
+    TiingoCandle dividend = (TiingoCandle) candle(END_DATE, 26);
+    dividend.setDivCash(0.26);
+    List<Candle> candles = List.of(candle(BUY_DATE, 100), split, dividend);
+    Mockito.doReturn(candles).when(stockQuotesService).getStockQuote(eq("AAPL"), any(), any());
+    List<PortfolioTrade> trades = List.of(new PortfolioTrade("AAPL", 10, BUY_DATE));
+
+    PortfolioManagerImpl quoted = new PortfolioManagerImpl(stockQuotesService);
+    assertEquals(26.0 / 100 - 1,
+        quoted.calculateAnnualizedReturn(trades, END_DATE).get(0).getTotalReturns(), DELTA);
+    assertEquals(10 * 26, quoted.aggregatePortfolio(trades, END_DATE).getValue(), 1e-6);
+
+    try (PortfolioManagerImpl adjusted =
+        new PortfolioManagerImpl(stockQuotesService, null, true)) {
+      assertEquals(4.04 * 26 / 100 - 1,
+          adjusted.calculateAnnualizedReturn(trades, END_DATE).get(0).getTotalReturns(), DELTA);
+      assertEquals(10 * 4.04 * 26, adjusted.aggregatePortfolio(trades, END_DATE).getValue(),
+          1e-6);
+    }
+  }
+
+  @Test
+  void readerReturnsAreHandedOverChunkByChunk() throws Exception {
+    Mockito.doReturn(AAPL).when(stockQuotesService).getStockQuote(eq("AAPL"), any(), any());
+    Mockito.doReturn(MSFT).when(stockQuotesService).getStockQuote(eq("MSFT"), any(), any());
+    String trades = "[{\"symbol\":\"AAPL\",\"quantity\":1,\"purchaseDate\":\"2019-01-02\"},"
+        + "{\"symbol\":\"MSFT\",\"quantity\":1,\"purchaseDate\":\"2019-01-02\"},"
+        + "{\"symbol\":\"AAPL\",\"quantity\":2,\"purchaseDate\":\"2019-01-02\"}]";
+    List<List<AnnualizedReturn>> chunks = new ArrayList<>();
+
+    try (PortfolioTradeReader reader = PortfolioTradeReader.open(
+        new ByteArrayInputStream(trades.getBytes(StandardCharsets.UTF_8)))) {
+      new PortfolioManagerImpl(stockQuotesService)
+          .calculateAnnualizedReturn(reader, END_DATE, 2, chunks::add);
+    }
+
+    assertEquals(List.of(2, 1), chunks.stream().map(List::size).collect(Collectors.toList()));
+    assertEquals("AAPL", chunks.get(0).get(0).getSymbol());
+    assertEquals("MSFT", chunks.get(0).get(1).getSymbol());
+    assertEquals(0.5, chunks.get(1).get(0).getTotalReturns(), DELTA);
+  }
+
+  private static List<PortfolioTrade> book() {
+    PortfolioTrade sell = new PortfolioTrade("AAPL", 4, SELL_DATE);
+    sell.setTradeType(TradeType.SELL);
+    return List.of(new PortfolioTrade("AAPL", 10, BUY_DATE), sell,
+        new PortfolioTrade("MSFT", 5, BUY_DATE));
+  }
+
+  private static Map<String, CandleSeries> quotes() {
+    return Map.of("AAPL", CandleSeries.of(AAPL), "MSFT", CandleSeries.of(MSFT));
+  }
+
+  private static Candle candle(LocalDate date, double price) {
+    TiingoCandle candle = new TiingoCandle();
+    candle.setDate(date);
+    candle.setOpen(price);
+    candle.setClose(price);
+    return candle;
+  }
+}
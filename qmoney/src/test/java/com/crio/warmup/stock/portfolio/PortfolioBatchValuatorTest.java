@@ -0,0 +1,101 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.quotes.QuoteSnapshot;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioBatchValuatorTest {
+
+  private static final LocalDate START = LocalDate.parse("2019-01-01");
+  private static final LocalDate END_DATE = LocalDate.parse("2019-12-31");
+  private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "GOOGL");
+
+  @Mock
+  private StockQuotesService stockQuotesService;
+
+  @Test
+  void fetchesEachSymbolOnceForTheWholeBatch() throws Exception {
+    Mockito.doReturn(candles()).when(stockQuotesService).getStockQuote(anyString(), any(), any());
+    Map<String, List<PortfolioTrade>> portfolios = new LinkedHashMap<>();
+    for (int i = 0; i < 1_000; i++) {
+      List<PortfolioTrade> trades = new ArrayList<>();
+      trades.add(new PortfolioTrade(SYMBOLS.get(i % 3), 1 + i % 7, START.plusDays(i % 90)));
+      trades.add(new PortfolioTrade(SYMBOLS.get((i + 1) % 3), 5, START.plusDays(30)));
+      portfolios.put("customer-" + i, trades);
+    }
+
+    Map<String, PortfolioAggregate> valued =
+        new PortfolioBatchValuator(stockQuotesService, new ForkJoinPool(4))
+            .value(portfolios, END_DATE);
+
+    // The earliest AAPL and MSFT lots start on START; GOOGL's first one is two days later.
+    Mockito.verify(stockQuotesService).getStockQuote("AAPL", START, END_DATE);
+    for (String symbol : SYMBOLS) {
+      Mockito.verify(stockQuotesService).getStockQuote(eq(symbol), any(), eq(END_DATE));
+    }
+    assertEquals(new ArrayList<>(portfolios.keySet()), new ArrayList<>(valued.keySet()));
+    QuoteSnapshot snapshot = QuoteSnapshot.of(Map.of("AAPL", series(), "MSFT", series(),
+        "GOOGL", series()));
+    for (int i : new int[] {0, 1, 517, 999}) {
+      String key = "customer-" + i;
+      PortfolioAggregate expected =
+          PortfolioBatchValuator.value(snapshot, portfolios.get(key), END_DATE, false);
+      assertEquals(expected.getValue(), valued.get(key).getValue(), 1e-9);
+      assertEquals(expected.getAnnualizedReturn(), valued.get(key).getAnnualizedReturn(), 1e-9);
+    }
+  }
+
+  @Test
+  void managerValuesPortfoliosThroughTheBatchValuator() throws Exception {
+    Mockito.doReturn(candles()).when(stockQuotesService).getStockQuote(anyString(), any(), any());
+    Map<String, List<PortfolioTrade>> portfolios = Map.of(
+        "a", List.of(new PortfolioTrade("AAPL", 10, START)),
+        "b", List.of(new PortfolioTrade("AAPL", 20, START)));
+
+    Map<String, PortfolioAggregate> valued =
+        new PortfolioManagerImpl(stockQuotesService).aggregatePortfolios(portfolios, END_DATE);
+
+    Mockito.verify(stockQuotesService).getStockQuote("AAPL", START, END_DATE);
+    assertEquals(2 * valued.get("a").getValue(), valued.get("b").getValue(), 1e-9);
+  }
+
+  private static CandleSeries series() {
+    return CandleSeries.of(candles());
+  }
+
+  // One candle a day, rising by one a day from 100.
+  private static List<Candle> candles() {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate date = START; !date.isAfter(END_DATE); date = date.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(date);
+      double price = 100 + ChronoUnit.DAYS.between(START, date);
+      candle.setOpen(price);
+      candle.setClose(price);
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,168 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class PortfolioExecutorTest {
+
+  private final PortfolioExecutor executor = new PortfolioExecutor(4, Duration.ofSeconds(5));
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void runsEveryTaskWithBoundedParallelism() throws Exception {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      int value = i;
+      tasks.add(() -> {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        Thread.sleep(10);
+        inFlight.decrementAndGet();
+        return value;
+      });
+    }
+
+    List<Integer> results = executor.invokeAll(tasks, 2).get(5, TimeUnit.SECONDS);
+
+    assertEquals(20, results.size());
+    assertEquals(19, (int) results.get(19));
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  void firstFailureCancelsOutstandingTasks() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      started.countDown();
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return 1;
+    });
+    tasks.add(() -> {
+      started.await(5, TimeUnit.SECONDS);
+      throw new IllegalStateException("boom");
+    });
+
+    ExecutionException error = assertThrows(ExecutionException.class,
+        () -> executor.invokeAll(tasks, 2).get(5, TimeUnit.SECONDS));
+
+    assertTrue(error.getCause() instanceof IllegalStateException);
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void virtualThreadsAreLimitedByPermits() throws Exception {
+    PortfolioExecutor virtualExecutor = PortfolioExecutor.virtualThreads(3, Duration.ofSeconds(5));
+    try {
+      AtomicInteger inFlight = new AtomicInteger();
+      AtomicInteger maxInFlight = new AtomicInteger();
+      List<Callable<Boolean>> tasks = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        tasks.add(() -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          Thread.sleep(5);
+          inFlight.decrementAndGet();
+          return Thread.currentThread().isVirtual();
+        });
+      }
+
+      List<Boolean> onVirtualThread = virtualExecutor.invokeAll(tasks, tasks.size())
+          .get(5, TimeUnit.SECONDS);
+
+      assertTrue(onVirtualThread.stream().allMatch(Boolean::booleanValue));
+      assertTrue(maxInFlight.get() <= 3);
+    } finally {
+      virtualExecutor.close();
+    }
+  }
+
+  @Test
+  void slowTaskTimesOut() {
+    PortfolioExecutor shortTimeouts = new PortfolioExecutor(1, Duration.ofMillis(50));
+    try {
+      ExecutionException error = assertThrows(ExecutionException.class,
+          () -> shortTimeouts.submit(() -> {
+            Thread.sleep(10_000);
+            return 1;
+          }).get(5, TimeUnit.SECONDS));
+      assertTrue(error.getCause() instanceof TimeoutException);
+    } finally {
+      shortTimeouts.close();
+    }
+  }
+
+  @Test
+  void timeoutStartsWhenTaskRuns() throws Exception {
+    PortfolioExecutor oneWorker = new PortfolioExecutor(1, Duration.ofMillis(300));
+    try {
+      List<Callable<Integer>> tasks = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        tasks.add(() -> {
+          Thread.sleep(100);
+          return 1;
+        });
+      }
+
+      // Queued four deep behind one worker, the last task starts after the timeout has passed.
+      List<Integer> results = oneWorker.invokeAll(tasks, tasks.size()).get(5, TimeUnit.SECONDS);
+
+      assertEquals(List.of(1, 1, 1, 1), results);
+    } finally {
+      oneWorker.close();
+    }
+  }
+
+  @Test
+  void managerTimesOutEachSymbolOnItsOwn() throws Exception {
+    StockQuotesService stockQuotesService = Mockito.mock(StockQuotesService.class);
+    Mockito.doAnswer(invocation -> {
+      Thread.sleep(200);
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(invocation.getArgument(1));
+      candle.setOpen(100.0);
+      candle.setClose(110.0);
+      return List.of(candle);
+    }).when(stockQuotesService).getStockQuote(any(), any(), any());
+    List<PortfolioTrade> trades = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      trades.add(new PortfolioTrade("SYM" + i, 1, LocalDate.parse("2019-01-02")));
+    }
+
+    // Two symbols fetched back to back would exceed the 300ms timeout; one at a time never does.
+    try (PortfolioManagerImpl portfolioManager = new PortfolioManagerImpl(stockQuotesService,
+        new PortfolioExecutor(2, Duration.ofMillis(300)))) {
+      assertEquals(6, portfolioManager
+          .calculateAnnualizedReturnParallel(trades, LocalDate.parse("2019-12-12"), 2).size());
+    }
+  }
+}
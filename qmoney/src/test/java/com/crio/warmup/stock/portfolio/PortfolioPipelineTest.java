@@ -0,0 +1,161 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioPipelineTest {
+
+  private static final LocalDate PURCHASE_DATE = LocalDate.parse("2019-01-02");
+  private static final LocalDate END_DATE = LocalDate.parse("2019-12-12");
+
+  @Mock
+  private StockQuotesService stockQuotesService;
+
+  @Test
+  void streamsResultsBeforeSlowestSymbolAndKeepsTopN() throws Exception {
+    CountDownLatch fastResults = new CountDownLatch(2);
+    Mockito.doAnswer(invocation -> {
+      assertTrue(fastResults.await(5, TimeUnit.SECONDS));
+      return candles(100, 300);
+    }).when(stockQuotesService).getCandleSeries(eq("SLOW"), any(), any());
+    Mockito.doReturn(candles(100, 110)).when(stockQuotesService)
+        .getCandleSeries(eq("AAPL"), any(), any());
+    Mockito.doReturn(candles(100, 150)).when(stockQuotesService)
+        .getCandleSeries(eq("MSFT"), any(), any());
+    List<PortfolioTrade> trades = List.of(trade("SLOW"), trade("AAPL"), trade("MSFT"));
+    List<String> streamed = new ArrayList<>();
+
+    List<AnnualizedReturn> top = new PortfolioPipeline(stockQuotesService, 3, 4)
+        .run(trades.iterator(), END_DATE, 2, annualizedReturn -> {
+          streamed.add(annualizedReturn.getSymbol());
+          fastResults.countDown();
+        });
+
+    assertEquals("SLOW", streamed.get(2));
+    assertEquals(2, top.size());
+    assertEquals("SLOW", top.get(0).getSymbol());
+    assertEquals("MSFT", top.get(1).getSymbol());
+  }
+
+  @Test
+  void slowSinkBacksUpIngestion() throws Exception {
+    Mockito.doReturn(candles(100, 110)).when(stockQuotesService)
+        .getCandleSeries(anyString(), any(), any());
+    AtomicInteger pulled = new AtomicInteger();
+    Iterator<PortfolioTrade> source = new Iterator<PortfolioTrade>() {
+      @Override
+      public boolean hasNext() {
+        return pulled.get() < 1_000;
+      }
+
+      @Override
+      public PortfolioTrade next() {
+        pulled.incrementAndGet();
+        return trade("AAPL");
+      }
+    };
+    AtomicInteger pulledWhileBlocked = new AtomicInteger(-1);
+
+    new PortfolioPipeline(stockQuotesService, 1, 2).run(source, END_DATE, 1, result -> {
+      if (pulledWhileBlocked.get() < 0) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        pulledWhileBlocked.set(pulled.get());
+      }
+    });
+
+    assertTrue(pulledWhileBlocked.get() <= 8, "pulled " + pulledWhileBlocked.get());
+    assertEquals(1_000, pulled.get());
+  }
+
+  @Test
+  void fetchFailureStopsTheRun() throws Exception {
+    Mockito.doThrow(new StockQuoteServiceException("Rate limit exceeded!!"))
+        .when(stockQuotesService).getCandleSeries(anyString(), any(), any());
+
+    assertThrows(StockQuoteServiceException.class, () -> new PortfolioPipeline(stockQuotesService)
+        .run(List.of(trade("AAPL"), trade("MSFT")).iterator(), END_DATE, 10, result -> { }));
+  }
+
+  @Test
+  void fetchersRunOnTheInjectedExecutor() throws Exception {
+    List<Boolean> virtual = new CopyOnWriteArrayList<>();
+    Mockito.doAnswer(invocation -> {
+      virtual.add(Thread.currentThread().isVirtual());
+      return candles(100, 110);
+    }).when(stockQuotesService).getCandleSeries(anyString(), any(), any());
+
+    try (PortfolioExecutor executor =
+        PortfolioExecutor.virtualThreads(2, PortfolioExecutor.DEFAULT_TASK_TIMEOUT)) {
+      List<AnnualizedReturn> top = new PortfolioPipeline(stockQuotesService, executor, 4, 2)
+          .run(List.of(trade("AAPL"), trade("MSFT"), trade("GOOGL")).iterator(), END_DATE, 3,
+              result -> { });
+
+      assertEquals(3, top.size());
+    }
+    assertEquals(List.of(true, true, true), virtual);
+  }
+
+  @Test
+  void sourceErrorStopsTheRunInsteadOfHanging() {
+    Iterator<PortfolioTrade> source = new Iterator<PortfolioTrade>() {
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public PortfolioTrade next() {
+        throw new AssertionError("corrupt source");
+      }
+    };
+
+    assertThrows(AssertionError.class, () -> new PortfolioPipeline(stockQuotesService, 2, 2)
+        .run(source, END_DATE, 1, result -> { }));
+  }
+
+  private static PortfolioTrade trade(String symbol) {
+    return new PortfolioTrade(symbol, 10, PURCHASE_DATE);
+  }
+
+  private static CandleSeries candles(double open, double close) {
+    TiingoCandle first = new TiingoCandle();
+    first.setDate(PURCHASE_DATE);
+    first.setOpen(open);
+    first.setClose(open);
+    TiingoCandle last = new TiingoCandle();
+    last.setDate(END_DATE);
+    last.setOpen(close);
+    last.setClose(close);
+    return CandleSeries.of(List.of(first, last));
+  }
+}
@@ -0,0 +1,108 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ReturnKernelsTest {
+
+  // Odd sizes so the vector loops always leave a scalar remainder.
+  private static final int[] LENGTHS = {1, 2, 7, 1003};
+
+  @Test
+  void scalarKernelsMatchTheDefinitions() {
+    ReturnKernels kernels = ReturnKernels.scalar();
+    double[] closes = {100, 110, 99, 99};
+    double[] logReturns = new double[3];
+    kernels.logReturns(closes, closes.length, logReturns);
+    assertArrayEquals(new double[] {Math.log(1.1), Math.log(0.9), 0}, logReturns, 1e-15);
+
+    double[] products = new double[4];
+    kernels.cumulativeProduct(new double[] {2, 3, 0.5, 4}, 4, products);
+    assertArrayEquals(new double[] {2, 6, 3, 12}, products, 0);
+
+    double[] values = {1, 2, 3, 4, 5};
+    assertEquals(3, kernels.mean(values, 5), 0);
+    assertEquals(2.5, kernels.variance(values, 5), 1e-15);
+    assertEquals(2 * 2 + 3 * 3, kernels.dot(values, new double[] {0, 2, 3, 4, 5}, 1, 3), 0);
+
+    double[] annualized = new double[1];
+    kernels.annualizedReturns(new double[] {100}, new double[] {121}, new double[] {2}, 1,
+        annualized);
+    assertEquals(0.1, annualized[0], 1e-15);
+  }
+
+  @Test
+  void vectorKernelsMatchScalarKernels() {
+    assumeTrue(ReturnKernels.isVectorAvailable(),
+        "needs --add-modules jdk.incubator.vector");
+    ReturnKernels scalar = ReturnKernels.scalar();
+    ReturnKernels vector = ReturnKernels.vector();
+    Random random = new Random(7);
+
+    for (int length : LENGTHS) {
+      double[] closes = new double[length];
+      double[] buyPrices = new double[length];
+      double[] years = new double[length];
+      double price = 100;
+      for (int i = 0; i < length; i++) {
+        price *= 1 + (random.nextDouble() - 0.5) * 0.04;
+        closes[i] = price;
+        buyPrices[i] = 50 + random.nextDouble() * 100;
+        years[i] = 0.5 + random.nextDouble() * 10;
+      }
+
+      assertArrayEquals(run(scalar::logReturns, closes, length),
+          run(vector::logReturns, closes, length), 1e-14);
+      assertEquals(scalar.mean(closes, length), vector.mean(closes, length), 1e-10);
+      double dot = scalar.dot(closes, buyPrices, 0, length);
+      assertEquals(dot, vector.dot(closes, buyPrices, 0, length), 1e-9 * dot);
+      double offsetDot = scalar.dot(closes, years, 1, length);
+      assertEquals(offsetDot, vector.dot(closes, years, 1, length), 1e-9 * offsetDot + 1e-12);
+      if (length > 1) {
+        assertEquals(scalar.variance(closes, length), vector.variance(closes, length),
+            1e-9 * scalar.variance(closes, length));
+      }
+      double[] expected = new double[length];
+      double[] actual = new double[length];
+      scalar.annualizedReturns(buyPrices, closes, years, length, expected);
+      vector.annualizedReturns(buyPrices, closes, years, length, actual);
+      assertArrayEquals(expected, actual, 1e-13);
+    }
+  }
+
+  @Test
+  void rollingReturnsAgreeOnEitherKernels() {
+    ReturnKernels kernels = ReturnKernels.getDefault();
+    CandleSeries.Builder builder = CandleSeries.builder(1000);
+    for (int day = 0; day < 1000; day++) {
+      double price = 100 + 10 * Math.sin(day / 20.0) + day * 0.01;
+      builder.add(17_000 + day, price, price, price, price + 0.25);
+    }
+    CandleSeries candles = builder.build();
+
+    RollingReturns expected = RollingReturns.of("AAPL", candles, RollingReturns.ONE_YEAR,
+        ReturnKernels.scalar());
+    RollingReturns actual = RollingReturns.of("AAPL", candles, RollingReturns.ONE_YEAR, kernels);
+
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getAnnualizedReturn(i), actual.getAnnualizedReturn(i), 1e-13);
+    }
+  }
+
+  private static double[] run(Kernel kernel, double[] closes, int length) {
+    double[] out = new double[Math.max(0, length - 1)];
+    kernel.apply(closes, length, out);
+    return out;
+  }
+
+  private interface Kernel {
+    void apply(double[] values, int length, double[] out);
+  }
+}
@@ -0,0 +1,88 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class ReturnRankingTest {
+
+  @Test
+  void topKeepsTheBestInDescendingOrder() {
+    ReturnRanking ranking = ReturnRanking.top(3);
+    for (double value : new double[] {0.1, -0.5, 0.7, 0.3, 0.2, 0.9}) {
+      ranking.offer(new AnnualizedReturn("S" + value, value, value));
+    }
+
+    assertEquals(List.of(0.9, 0.7, 0.3), values(ranking.toList()));
+    assertEquals(3, ranking.size());
+  }
+
+  @Test
+  void bottomKeepsTheWorstInAscendingOrder() {
+    ReturnRanking ranking = ReturnRanking.bottom(2);
+    for (double value : new double[] {0.1, -0.5, 0.7, 0.3, -0.2}) {
+      ranking.offer(new AnnualizedReturn("S" + value, value, value));
+    }
+
+    assertEquals(List.of(-0.5, -0.2), values(ranking.toList()));
+  }
+
+  @Test
+  void matchesAFullSortOfRandomReturns() {
+    Random random = new Random(42);
+    List<AnnualizedReturn> all = new ArrayList<>();
+    ReturnRanking ranking = ReturnRanking.top(25);
+    for (int i = 0; i < 1_000; i++) {
+      AnnualizedReturn annualizedReturn =
+          new AnnualizedReturn("S" + i, random.nextGaussian(), 0.0);
+      all.add(annualizedReturn);
+      ranking.offer(annualizedReturn);
+    }
+    all.sort(Comparator.comparingDouble(AnnualizedReturn::getAnnualizedReturn).reversed());
+
+    assertEquals(values(all.subList(0, 25)), values(ranking.toList()));
+    // Reading the ranking leaves it intact.
+    assertEquals(values(all.subList(0, 25)), values(ranking.toList()));
+  }
+
+  @Test
+  void nanReturnsRankLastInBothOrders() {
+    for (ReturnRanking.Order order : ReturnRanking.Order.values()) {
+      ReturnRanking ranking = ReturnRanking.of(order, 3);
+      for (double value : new double[] {Double.NaN, 0.1, -0.5, Double.NaN, 0.7}) {
+        ranking.offer(new AnnualizedReturn("S" + value, value, value));
+      }
+      ReturnRanking withNaN = ReturnRanking.of(order, 3);
+      for (double value : new double[] {Double.NaN, 0.1, Double.NaN}) {
+        withNaN.offer(new AnnualizedReturn("S" + value, value, value));
+      }
+
+      List<Double> expected = order == ReturnRanking.Order.TOP
+          ? List.of(0.7, 0.1, -0.5) : List.of(-0.5, 0.1, 0.7);
+      assertEquals(expected, values(ranking.toList()));
+      assertEquals(List.of(0.1, Double.NaN, Double.NaN), values(withNaN.toList()));
+    }
+  }
+
+  @Test
+  void zeroCapacityRanksNothing() {
+    ReturnRanking ranking = ReturnRanking.top(0);
+
+    assertFalse(ranking.offer(new AnnualizedReturn("AAPL", 0.5, 0.5)));
+    assertTrue(ranking.toList().isEmpty());
+  }
+
+  private static List<Double> values(List<AnnualizedReturn> annualizedReturns) {
+    return annualizedReturns.stream().map(AnnualizedReturn::getAnnualizedReturn)
+        .collect(Collectors.toList());
+  }
+}
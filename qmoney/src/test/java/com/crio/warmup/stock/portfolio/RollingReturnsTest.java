@@ -0,0 +1,120 @@
+
+package com.crio.warmup.stock.portfolio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.quotes.StockQuotesService;
+import com.fasterxml.jackson.core.JsonParseException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RollingReturnsTest {
+
+  private static final LocalDate START = LocalDate.parse("2015-01-05");
+
+  @Mock
+  private StockQuotesService stockQuotesService;
+
+  @Test
+  void matchesOneCalculationPerWindow() {
+    CandleSeries candles = weekdays(START, LocalDate.parse("2019-12-31"));
+
+    for (Period window : List.of(RollingReturns.ONE_YEAR, RollingReturns.THREE_YEARS)) {
+      RollingReturns rolling = RollingReturns.of("AAPL", candles, window);
+      int expected = 0;
+      for (int end = 0; end < candles.size(); end++) {
+        LocalDate endDate = candles.getDate(end);
+        LocalDate windowStart = endDate.minus(window);
+        if (windowStart.isBefore(START)) {
+          continue;
+        }
+        double buyPrice = candles.getOpen(candles.lowerBound(windowStart.toEpochDay()));
+        AnnualizedReturn direct = PortfolioManagerImpl.calculateAnnualizedReturns(endDate,
+            new PortfolioTrade("AAPL", 1, windowStart), buyPrice, candles.getClose(end));
+        assertEquals(endDate, rolling.getDate(expected));
+        assertEquals(direct.getAnnualizedReturn(), rolling.getAnnualizedReturn(expected), 1e-12);
+        assertEquals(direct.getTotalReturns(), rolling.getTotalReturn(expected), 1e-12);
+        expected++;
+      }
+      assertEquals(expected, rolling.size());
+    }
+  }
+
+  @Test
+  void sliceKeepsDaysEndingInRange() {
+    RollingReturns rolling = RollingReturns.of("AAPL",
+        weekdays(START, LocalDate.parse("2017-12-31")), RollingReturns.ONE_YEAR);
+
+    RollingReturns march = rolling.slice(LocalDate.parse("2017-03-01"),
+        LocalDate.parse("2017-03-31"));
+
+    assertEquals(23, march.size());
+    assertEquals(LocalDate.parse("2017-03-01"), march.getDate(0));
+    assertEquals(LocalDate.parse("2017-03-31"), march.getDate(22));
+  }
+
+  @Test
+  void managerFetchesEachSymbolOnceForAllWindows() throws Exception {
+    Mockito.doAnswer(invocation -> weekdays(invocation.getArgument(1), invocation.getArgument(2))
+        .asCandles()).when(stockQuotesService).getStockQuote(any(), any(), any());
+    LocalDate from = LocalDate.parse("2020-01-01");
+    LocalDate to = LocalDate.parse("2020-12-31");
+
+    Map<String, List<RollingReturns>> returns = new PortfolioManagerImpl(stockQuotesService)
+        .calculateRollingReturns(List.of("MSFT", "AAPL"), from, to,
+            List.of(RollingReturns.ONE_YEAR, RollingReturns.FIVE_YEARS));
+
+    assertEquals(List.of("MSFT", "AAPL"), List.copyOf(returns.keySet()));
+    for (List<RollingReturns> windows : returns.values()) {
+      assertEquals(RollingReturns.ONE_YEAR, windows.get(0).getWindow());
+      assertEquals(RollingReturns.FIVE_YEARS, windows.get(1).getWindow());
+      assertEquals(windows.get(0).size(), windows.get(1).size());
+      assertEquals(LocalDate.parse("2020-01-01"), windows.get(1).getDate(0));
+      assertEquals(262, windows.get(1).size());
+    }
+    verify(stockQuotesService, times(1)).getStockQuote(eq("AAPL"), any(), eq(to));
+  }
+
+  @Test
+  void unparsableQuotesKeepTheParseErrorAsCause() throws Exception {
+    JsonParseException parseError = new JsonParseException(null, "Unexpected character");
+    Mockito.doThrow(parseError).when(stockQuotesService).getStockQuote(any(), any(), any());
+
+    StockQuoteServiceException failure = assertThrows(StockQuoteServiceException.class,
+        () -> new PortfolioManagerImpl(stockQuotesService).calculateRollingReturns(
+            List.of("AAPL"), START, START.plusDays(10), List.of(RollingReturns.ONE_YEAR)));
+    assertSame(parseError, failure.getCause());
+  }
+
+  private static CandleSeries weekdays(LocalDate from, LocalDate to) {
+    CandleSeries.Builder builder = CandleSeries.builder(2048);
+    int day = 0;
+    for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+      if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+        continue;
+      }
+      double price = 100 + 20 * Math.sin(date.toEpochDay() / 30.0) + 0.05 * day++;
+      builder.add(date.toEpochDay(), price, price + 1, price - 1, price + 0.5);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,103 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.json.JsonCodecs;
+import com.fasterxml.jackson.core.JsonFactory;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class AlphavantageResponseParserTest {
+
+  private final JsonFactory jsonFactory = JsonCodecs.getDefault().getJsonFactory();
+
+  private String response = "{\"Meta Data\": {\"2. Symbol\": \"AAPL\"},\"Time Series (Daily)\": {"
+      + "\"2019-01-07\": {\"1. open\": \"148.7000\",\"2. high\": \"148.8300\",\"3. low\": "
+      + "\"145.9000\",\"4. close\": \"147.9300\",\"5. adjusted close\": \"145.7333\"},"
+      + "\"2019-01-04\": {\"1. open\": \"144.5300\",\"2. high\": \"148.5499\",\"3. low\": "
+      + "\"143.8000\",\"4. close\": \"148.2600\",\"5. adjusted close\": \"146.0586\"},"
+      + "\"2019-01-03\": {\"1. open\": \"143.9800\",\"2. high\": \"145.7200\",\"3. low\": "
+      + "\"142.0000\",\"4. close\": \"142.1900\",\"5. adjusted close\": \"140.0787\"},"
+      + "\"2019-01-02\": {\"1. open\": \"154.8900\",\"2. high\": \"158.8500\",\"3. low\": "
+      + "\"154.2300\",\"4. close\": \"157.9200\",\"5. adjusted close\": \"155.5752\"},"
+      + "\"2018-12-31\": {\"1. open\": \"158.5300\",\"2. high\": \"159.3600\",\"3. low\": "
+      + "\"156.4800\",\"4. close\": \"157.7400\",\"5. adjusted close\": \"155.3979\"}}}";
+
+  @Test
+  void keepsRequestedDaysInAscendingOrder() throws Exception {
+    CandleSeries series = AlphavantageResponseParser.parse(jsonFactory, response,
+        LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-04"));
+
+    assertEquals(3, series.size());
+    assertEquals(LocalDate.parse("2019-01-02"), series.getDate(0));
+    assertEquals(154.89, series.getOpen(0), 0.0001);
+    assertEquals(LocalDate.parse("2019-01-04"), series.getDate(2));
+    assertEquals(148.26, series.getClose(2), 0.0001);
+  }
+
+  @Test
+  void readsDividendsAndSplits() throws Exception {
+    String adjusted = "{\"Time Series (Daily)\": {"
+        + "\"2020-08-31\": {\"1. open\": \"127.58\",\"4. close\": \"129.04\","
+        + "\"7. dividend amount\": \"0.0000\",\"8. split coefficient\": \"4.0\"},"
+        + "\"2020-08-28\": {\"1. open\": \"504.05\",\"4. close\": \"499.23\","
+        + "\"7. dividend amount\": \"0.0000\",\"8. split coefficient\": \"1.0\"},"
+        + "\"2020-08-07\": {\"1. open\": \"452.82\",\"4. close\": \"444.45\","
+        + "\"7. dividend amount\": \"0.8200\",\"8. split coefficient\": \"1.0\"}}}";
+
+    CandleSeries series = AlphavantageResponseParser.parse(jsonFactory, adjusted,
+        LocalDate.parse("2020-08-01"), LocalDate.parse("2020-08-31"));
+
+    assertEquals(0.82, series.getDividend(0), 0);
+    assertEquals(4, series.getSplitFactor(2), 0);
+    // The dividend goes ex on the first day, so a share bought then only sees the split.
+    assertEquals(4, series.getAdjustment(0, 2), 1e-12);
+    assertEquals(1, series.getSplitFactor(1), 0);
+  }
+
+  @Test
+  void emptyRangeYieldsEmptySeries() throws Exception {
+    assertTrue(AlphavantageResponseParser.parse(jsonFactory, response,
+        LocalDate.parse("2019-01-05"), LocalDate.parse("2019-01-06")).isEmpty());
+  }
+
+  @Test
+  void throttleMessageIsReportedAsServiceException() {
+    String throttled = "{\"Note\": \"Thank you for using Alpha Vantage! Our standard API call "
+        + "frequency is 5 calls per minute and 500 calls per day.\"}";
+
+    StockQuoteServiceException exception = assertThrows(StockQuoteServiceException.class,
+        () -> AlphavantageResponseParser.parse(jsonFactory, throttled,
+            LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-04")));
+    assertTrue(exception.getMessage().startsWith("Note: "));
+    assertTrue(exception instanceof StockQuoteThrottledException);
+  }
+
+  @Test
+  void keyAndPremiumMessagesAreNotThrottling() {
+    String[] messages = {
+        "{\"Information\": \"The **demo** API key is for demo purposes only. Please claim your "
+            + "free API key at (https://www.alphavantage.co/support/#api-key) to explore our "
+            + "full API offerings.\"}",
+        "{\"Information\": \"Thank you for using Alpha Vantage! This is a premium endpoint. You "
+            + "may subscribe to any of the premium plans to instantly unlock all premium "
+            + "endpoints.\"}",
+        "{\"Error Message\": \"the parameter apikey is invalid or missing.\"}"};
+
+    for (String message : messages) {
+      StockQuoteServiceException exception = assertThrows(StockQuoteServiceException.class,
+          () -> AlphavantageResponseParser.parse(jsonFactory, message,
+              LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-04")));
+      assertFalse(exception instanceof StockQuoteThrottledException, message);
+    }
+    assertTrue(AlphavantageResponseParser.isRateLimitMessage("Thank you for using Alpha Vantage! "
+        + "Our standard API rate limit is 25 requests per day."));
+  }
+}
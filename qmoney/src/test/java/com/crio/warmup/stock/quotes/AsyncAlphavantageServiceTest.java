@@ -0,0 +1,73 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.quotes.StubHttpClient.StubResponse;
+import java.time.LocalDate;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AsyncAlphavantageServiceTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2019-01-02");
+  private static final LocalDate TO = LocalDate.parse("2019-12-12");
+  private static final String DAILY = "{\"Meta Data\":{\"2. Symbol\":\"AAPL\"},"
+      + "\"Time Series (Daily)\":{"
+      + "\"2019-12-12\":{\"1. open\":\"120.0\",\"4. close\":\"130.0\"},"
+      + "\"2019-01-02\":{\"1. open\":\"100.0\",\"4. close\":\"101.0\"}}}";
+  private static final String NOTE = "{\"Note\":\"Thank you for using Alpha Vantage! Our "
+      + "standard API call frequency is 5 calls per minute and 500 calls per day.\"}";
+
+  private final Executor parseExecutor = Executors.newSingleThreadExecutor();
+
+  @Test
+  void throttleNoteIsRetriedAfterBackingOff() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200,
+        calls.getAndIncrement() == 0 ? NOTE : DAILY), 0);
+    RateLimiter rateLimiter = new RateLimiter(100, 10);
+    AsyncAlphavantageService service =
+        new AsyncAlphavantageService(httpClient, parseExecutor, rateLimiter);
+
+    CandleSeries candles = service.getCandleSeries("AAPL", FROM, TO);
+
+    assertEquals(2, candles.size());
+    assertEquals(130.0, candles.getClose(1));
+    assertEquals(2, calls.get());
+    assertTrue(rateLimiter.getRate() < 100);
+  }
+
+  @Test
+  void throttleNoteFailsAsThrottledOnceRetriesAreUsedUp() {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, NOTE), 0);
+
+    assertThrows(StockQuoteThrottledException.class,
+        () -> new AsyncAlphavantageService(httpClient, parseExecutor, null)
+            .getCandleSeries("AAPL", FROM, TO));
+    assertEquals(1, httpClient.uris.size());
+  }
+
+  @Test
+  void invalidSymbolIsNotRetried() {
+    AtomicInteger calls = new AtomicInteger();
+    StubHttpClient httpClient = new StubHttpClient(uri -> {
+      calls.incrementAndGet();
+      return new StubResponse(200, "{\"Error Message\":\"Invalid API call.\"}");
+    }, 0);
+    RateLimiter rateLimiter = new RateLimiter(100, 10);
+
+    StockQuoteServiceException failure = assertThrows(StockQuoteServiceException.class,
+        () -> new AsyncAlphavantageService(httpClient, parseExecutor, rateLimiter)
+            .getCandleSeries("AAPL", FROM, TO));
+    assertTrue(!(failure instanceof StockQuoteThrottledException));
+    assertEquals(1, calls.get());
+  }
+}
@@ -0,0 +1,133 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.AnnualizedReturn;
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.PortfolioTrade;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.Counter;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import com.crio.warmup.stock.portfolio.PortfolioManagerImpl;
+import com.crio.warmup.stock.quotes.StubHttpClient.StubResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AsyncTiingoServiceTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2019-01-02");
+  private static final LocalDate TO = LocalDate.parse("2019-12-12");
+  private static final String CANDLES =
+      "[{\"date\":\"2019-12-12\",\"open\":120.0,\"close\":130.0},"
+      + "{\"date\":\"2019-01-02\",\"open\":100.0,\"close\":101.0}]";
+
+  private final Executor parseExecutor = Executors.newSingleThreadExecutor();
+
+  @Test
+  void parsesAndSortsTheResponse() throws Exception {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, CANDLES), 0);
+    AsyncTiingoService service = new AsyncTiingoService(httpClient, parseExecutor, null);
+
+    List<Candle> candles = service.getStockQuoteAsync("AAPL", FROM, TO).get(5, TimeUnit.SECONDS);
+
+    assertEquals(FROM, candles.get(0).getDate());
+    assertEquals(130.0, candles.get(1).getClose());
+    assertTrue(httpClient.uris.get(0).toString().startsWith("https://api.tiingo.com/tiingo/daily/"
+        + "AAPL/prices?startDate=2019-01-02&endDate=2019-12-12"));
+  }
+
+  @Test
+  void countsResponseBytesAsReceived() throws Exception {
+    Counter responseBytes = MetricsRegistry.getDefault().counter(
+        "qmoney_quote_response_bytes_total", "", "provider", "tiingo");
+    long before = responseBytes.get();
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, CANDLES), 0);
+
+    new AsyncTiingoService(httpClient, parseExecutor, null).getStockQuote("AAPL", FROM, TO);
+
+    assertEquals(CANDLES.getBytes(StandardCharsets.UTF_8).length, responseBytes.get() - before);
+  }
+
+  @Test
+  void throttledRequestIsRetriedAfterBackingOff() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    StubHttpClient httpClient = new StubHttpClient(
+        uri -> calls.getAndIncrement() == 0 ? new StubResponse(429, "") : new StubResponse(200,
+            CANDLES), 0);
+    RateLimiter rateLimiter = new RateLimiter(100, 10);
+    AsyncTiingoService service = new AsyncTiingoService(httpClient, parseExecutor, rateLimiter);
+
+    assertEquals(2, service.getStockQuote("AAPL", FROM, TO).size());
+    assertEquals(2, calls.get());
+    assertTrue(rateLimiter.getRate() < 100);
+  }
+
+  @Test
+  void failureStatusCompletesExceptionally() {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(500, "oops"), 0);
+    AsyncTiingoService service = new AsyncTiingoService(httpClient, parseExecutor, null);
+
+    ExecutionException failure = assertThrows(ExecutionException.class,
+        () -> service.getStockQuoteAsync("AAPL", FROM, TO).get(5, TimeUnit.SECONDS));
+    assertTrue(failure.getCause() instanceof StockQuoteServiceException);
+    assertThrows(StockQuoteThrottledException.class, () -> new AsyncTiingoService(
+        new StubHttpClient(uri -> new StubResponse(429, ""), 0), parseExecutor, null)
+        .getStockQuote("AAPL", FROM, TO));
+  }
+
+  @Test
+  void cancellingTheFetchCancelsTheExchange() {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, CANDLES), 5_000);
+    AsyncTiingoService service = new AsyncTiingoService(httpClient, parseExecutor, null);
+
+    service.getCandleSeriesAsync("AAPL", FROM, TO).cancel(true);
+
+    assertEquals(1, httpClient.exchanges.size());
+    assertTrue(httpClient.exchanges.get(0).isCancelled());
+  }
+
+  @Test
+  void cancelledRequestIsNotSentOnceItsDelayElapses() throws Exception {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, CANDLES), 0);
+    AsyncTiingoService service =
+        new AsyncTiingoService(httpClient, parseExecutor, new RateLimiter(10, 1));
+
+    service.getStockQuoteAsync("AAPL", FROM, TO).get(5, TimeUnit.SECONDS);
+    service.getStockQuoteAsync("MSFT", FROM, TO).cancel(true);
+    Thread.sleep(300);
+
+    assertEquals(1, httpClient.uris.size());
+  }
+
+  @Test
+  void managerKeepsHundredsOfFetchesInFlightWithoutAThreadEach() throws Exception {
+    StubHttpClient httpClient = new StubHttpClient(uri -> new StubResponse(200, CANDLES), 300);
+    List<PortfolioTrade> trades = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      trades.add(new PortfolioTrade("S" + i, 1, FROM));
+    }
+
+    long start = System.nanoTime();
+    try (PortfolioManagerImpl manager = new PortfolioManagerImpl(
+        new AsyncTiingoService(httpClient, parseExecutor, null))) {
+      List<AnnualizedReturn> returns =
+          manager.calculateAnnualizedReturnAsync(trades, TO).get(10, TimeUnit.SECONDS);
+      assertEquals(300, returns.size());
+    }
+
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    assertEquals(300, httpClient.uris.size());
+  }
+}
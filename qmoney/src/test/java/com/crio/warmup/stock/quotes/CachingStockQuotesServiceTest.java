@@ -0,0 +1,144 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CachingStockQuotesServiceTest {
+
+  @Mock
+  private StockQuotesService upstream;
+
+  @TempDir
+  Path storeDir;
+
+  private CachingStockQuotesService cachingService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Clock clock = Clock.fixed(LocalDate.parse("2020-01-01").atStartOfDay()
+        .toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    cachingService = new CachingStockQuotesService(upstream, new CandleStore(storeDir), clock);
+    Mockito.lenient().doAnswer(invocation -> candles(invocation.getArgument(1),
+        invocation.getArgument(2))).when(upstream).getStockQuote(eq("AAPL"), any(), any());
+  }
+
+  @Test
+  void servesCoveredRangeFromDisk() throws Exception {
+    cachingService.getStockQuote("AAPL", LocalDate.parse("2019-01-01"),
+        LocalDate.parse("2019-12-31"));
+
+    List<Candle> candles = cachingService.getStockQuote("AAPL", LocalDate.parse("2019-03-01"),
+        LocalDate.parse("2019-03-10"));
+
+    verify(upstream, times(1)).getStockQuote(eq("AAPL"), any(), any());
+    assertEquals(10, candles.size());
+    assertEquals(LocalDate.parse("2019-03-01"), candles.get(0).getDate());
+    assertEquals(100.0 + LocalDate.parse("2019-03-10").getDayOfYear(),
+        candles.get(9).getClose(), 0.0001);
+  }
+
+  @Test
+  void storeKeepsCorporateActions() throws Exception {
+    CandleStore store = new CandleStore(storeDir);
+    CandleSeries series = CandleSeries.builder(3).add(18_500, 100, 100, 100, 100)
+        .add(18_501, 25, 25, 25, 26, Double.NaN, 4).add(18_502, 26, 26, 26, 26, 0.52, 1).build();
+    store.write("AAPL", CandleStore.Entry.of(series, LocalDate.ofEpochDay(18_500),
+        LocalDate.ofEpochDay(18_502)));
+
+    CandleSeries stored = store.read("AAPL").getSeries();
+
+    assertEquals(4, stored.getSplitFactor(1), 0);
+    assertEquals(0.52, stored.getDividend(2), 0);
+    assertEquals(series.getAdjustment(0, 2), stored.getAdjustment(0, 2), 0);
+  }
+
+  @Test
+  void fetchesOnlyMissingHeadAndTail() throws Exception {
+    cachingService.getStockQuote("AAPL", LocalDate.parse("2019-03-01"),
+        LocalDate.parse("2019-03-31"));
+
+    List<Candle> candles = cachingService.getStockQuote("AAPL", LocalDate.parse("2019-02-20"),
+        LocalDate.parse("2019-04-05"));
+
+    verify(upstream).getStockQuote("AAPL", LocalDate.parse("2019-02-20"),
+        LocalDate.parse("2019-02-28"));
+    verify(upstream).getStockQuote("AAPL", LocalDate.parse("2019-04-01"),
+        LocalDate.parse("2019-04-05"));
+    assertEquals(45, candles.size());
+    assertEquals(LocalDate.parse("2019-04-05"), candles.get(44).getDate());
+  }
+
+  @Test
+  void doesNotStoreUnsettledDays() throws Exception {
+    cachingService.getStockQuote("AAPL", LocalDate.parse("2019-12-01"),
+        LocalDate.parse("2020-01-01"));
+    cachingService.getStockQuote("AAPL", LocalDate.parse("2019-12-01"),
+        LocalDate.parse("2020-01-01"));
+
+    verify(upstream, times(2)).getStockQuote(eq("AAPL"), any(), any());
+    verify(upstream).getStockQuote("AAPL", LocalDate.parse("2020-01-01"),
+        LocalDate.parse("2020-01-01"));
+    verify(upstream, never()).getStockQuote("AAPL", LocalDate.parse("2019-12-31"),
+        LocalDate.parse("2020-01-01"));
+  }
+
+  @Test
+  void versionOneFileIsRefetchedAndRewritten() throws Exception {
+    // Header (magic, version 1, one row covering 2019), then the date and OHLC columns.
+    int day = (int) LocalDate.parse("2019-06-03").toEpochDay();
+    ByteBuffer v1 = ByteBuffer.allocate(5 * Integer.BYTES + Integer.BYTES + 4 * Double.BYTES)
+        .putInt(0x51434e44).putInt(1).putInt(1)
+        .putInt((int) LocalDate.parse("2019-01-01").toEpochDay())
+        .putInt((int) LocalDate.parse("2019-12-31").toEpochDay())
+        .putInt(day).putDouble(1).putDouble(1).putDouble(1).putDouble(1);
+    Files.write(storeDir.resolve("AAPL.candles"), v1.array());
+
+    List<Candle> candles = cachingService.getStockQuote("AAPL", LocalDate.parse("2019-06-01"),
+        LocalDate.parse("2019-06-10"));
+    cachingService.getStockQuote("AAPL", LocalDate.parse("2019-06-01"),
+        LocalDate.parse("2019-06-10"));
+
+    verify(upstream, times(1)).getStockQuote(eq("AAPL"), any(), any());
+    assertEquals(10, candles.size());
+    assertEquals(10, new CandleStore(storeDir).read("AAPL").size());
+  }
+
+  private static List<Candle> candles(LocalDate from, LocalDate to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen(100.0);
+      candle.setHigh(110.0);
+      candle.setLow(90.0);
+      candle.setClose(100.0 + day.getDayOfYear());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
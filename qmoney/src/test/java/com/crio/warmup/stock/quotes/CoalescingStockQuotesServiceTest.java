@@ -0,0 +1,121 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingStockQuotesServiceTest {
+
+  @Mock
+  private StockQuotesService upstream;
+
+  private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    callers.shutdownNow();
+  }
+
+  @Test
+  void concurrentCallersShareUpstreamCalls() throws Exception {
+    CountDownLatch firstCallStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstCall = new CountDownLatch(1);
+    Mockito.doAnswer(invocation -> {
+      firstCallStarted.countDown();
+      releaseFirstCall.await(5, TimeUnit.SECONDS);
+      return candles(invocation.getArgument(1), invocation.getArgument(2));
+    }).when(upstream).getStockQuote(eq("AAPL"), any(), any());
+    CoalescingStockQuotesService service = new CoalescingStockQuotesService(upstream);
+
+    Future<List<Candle>> leader = callers.submit(() -> service.getStockQuote("AAPL",
+        LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-31")));
+    assertTrue(firstCallStarted.await(5, TimeUnit.SECONDS));
+    List<Thread> waiting = new ArrayList<>();
+    Future<List<Candle>> covered = submitTracked(waiting, service, "2019-01-10", "2019-01-20");
+    Future<List<Candle>> head = submitTracked(waiting, service, "2018-12-15", "2019-01-05");
+    Future<List<Candle>> tail = submitTracked(waiting, service, "2019-02-01", "2019-02-10");
+    awaitWaiting(waiting, 3);
+    releaseFirstCall.countDown();
+
+    assertEquals(31, leader.get(5, TimeUnit.SECONDS).size());
+    assertEquals(11, covered.get(5, TimeUnit.SECONDS).size());
+    assertEquals(22, head.get(5, TimeUnit.SECONDS).size());
+    assertEquals(LocalDate.parse("2019-02-10"),
+        tail.get(5, TimeUnit.SECONDS).get(9).getDate());
+    verify(upstream, times(2)).getStockQuote(eq("AAPL"), any(), any());
+    verify(upstream).getStockQuote("AAPL", LocalDate.parse("2018-12-15"),
+        LocalDate.parse("2019-02-10"));
+  }
+
+  @Test
+  void upstreamFailureReachesCaller() throws Exception {
+    Mockito.doThrow(new StockQuoteServiceException("Rate limit exceeded!!"))
+        .when(upstream).getStockQuote(eq("AAPL"), any(), any());
+    CoalescingStockQuotesService service = new CoalescingStockQuotesService(upstream);
+
+    assertThrows(StockQuoteServiceException.class, () -> service.getStockQuote("AAPL",
+        LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-31")));
+    assertThrows(StockQuoteServiceException.class, () -> service.getStockQuote("AAPL",
+        LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-31")));
+    verify(upstream, times(2)).getStockQuote(eq("AAPL"), any(), any());
+  }
+
+  private Future<List<Candle>> submitTracked(List<Thread> waiting,
+      CoalescingStockQuotesService service, String from, String to) {
+    return callers.submit(() -> {
+      synchronized (waiting) {
+        waiting.add(Thread.currentThread());
+      }
+      return service.getStockQuote("AAPL", LocalDate.parse(from), LocalDate.parse(to));
+    });
+  }
+
+  private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      synchronized (threads) {
+        if (threads.size() == count
+            && threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+          return;
+        }
+      }
+      Thread.sleep(5);
+    }
+  }
+
+  private static List<Candle> candles(LocalDate from, LocalDate to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen(100.0);
+      candle.setClose(100.0 + day.getDayOfYear());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,210 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+
+@ExtendWith(MockitoExtension.class)
+class FailoverStockQuotesServiceTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2019-01-01");
+  private static final LocalDate TO = LocalDate.parse("2019-01-10");
+
+  @Mock
+  private StockQuotesService primary;
+  @Mock
+  private StockQuotesService secondary;
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final MetricsRegistry registry = new MetricsRegistry();
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void fastPrimaryIsNotHedged() throws Exception {
+    Mockito.doReturn(series(FROM, TO)).when(primary).getCandleSeries("AAPL", FROM, TO);
+
+    assertEquals(10, service(Duration.ofSeconds(5)).getStockQuote("AAPL", FROM, TO).size());
+    verify(secondary, never()).getCandleSeries(any(), any(), any());
+  }
+
+  @Test
+  void throttledOrEmptyPrimaryFailsOverAndSecondaryIsNormalized() throws Exception {
+    Mockito.doThrow(new StockQuoteThrottledException("Rate limit exceeded!!"))
+        .when(primary).getCandleSeries("AAPL", FROM, TO);
+    Mockito.doReturn(CandleSeries.empty()).when(primary).getCandleSeries("MSFT", FROM, TO);
+    List<Candle> newestFirst = candles(FROM.minusDays(3), TO.plusDays(3));
+    Collections.reverse(newestFirst);
+    Mockito.doReturn(CandleSeries.of(newestFirst)).when(secondary)
+        .getCandleSeries(any(), eq(FROM), eq(TO));
+    FailoverStockQuotesService service = service(Duration.ofSeconds(5));
+
+    for (String symbol : List.of("AAPL", "MSFT")) {
+      List<Candle> candles = service.getStockQuote(symbol, FROM, TO);
+      assertEquals(10, candles.size());
+      assertEquals(FROM, candles.get(0).getDate());
+      assertEquals(TO, candles.get(9).getDate());
+    }
+    assertEquals(2, registry.counter("qmoney_quote_failovers_total", "",
+        "provider", "tiingo").get());
+  }
+
+  @Test
+  void slowPrimaryIsHedgedToSecondary() throws Exception {
+    Mockito.doAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return series(FROM, TO);
+    }).when(primary).getCandleSeries("AAPL", FROM, TO);
+    Mockito.doReturn(series(FROM, FROM)).when(secondary).getCandleSeries("AAPL", FROM, TO);
+
+    long start = System.nanoTime();
+    CandleSeries candles = service(Duration.ofMillis(50)).getCandleSeries("AAPL", FROM, TO);
+
+    assertEquals(1, candles.size());
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    assertEquals(1, registry.counter("qmoney_quote_hedged_total", "",
+        "provider", "tiingo").get());
+  }
+
+  @Test
+  void losingRequestIsCancelledOnceTheRaceIsWon() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    Mockito.doAnswer(invocation -> {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+        throw e;
+      }
+      return series(FROM, TO);
+    }).when(primary).getCandleSeries("AAPL", FROM, TO);
+    Mockito.doReturn(series(FROM, FROM)).when(secondary).getCandleSeries("AAPL", FROM, TO);
+
+    assertEquals(1, service(Duration.ofMillis(50)).getCandleSeries("AAPL", FROM, TO).size());
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void hedgeDelayFollowsPrimaryLatencyPercentile() throws Exception {
+    Mockito.doReturn(series(FROM, TO)).when(primary).getCandleSeries(any(), any(), any());
+    FailoverStockQuotesService service = service(Duration.ofSeconds(5));
+    assertEquals(TimeUnit.SECONDS.toNanos(5), service.getHedgeDelayNanos());
+
+    for (int i = 0; i < FailoverStockQuotesService.MIN_LATENCY_SAMPLES; i++) {
+      service.getCandleSeries("AAPL", FROM, TO);
+    }
+
+    long delay = service.getHedgeDelayNanos();
+    assertTrue(delay >= FailoverStockQuotesService.MIN_HEDGE_DELAY.toNanos());
+    assertTrue(delay < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  void timedOutPrimaryFailsOver() throws Exception {
+    Mockito.doThrow(new StockQuoteServiceException("API Limit Exceeded!!",
+        new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))))
+        .when(primary).getCandleSeries("AAPL", FROM, TO);
+    Mockito.doReturn(series(FROM, TO)).when(secondary).getCandleSeries("AAPL", FROM, TO);
+
+    assertEquals(10, service(Duration.ofSeconds(5)).getStockQuote("AAPL", FROM, TO).size());
+  }
+
+  @Test
+  void otherPrimaryFailuresAreNotFailedOver() throws Exception {
+    StockQuoteServiceException invalidSymbol =
+        new StockQuoteServiceException("Error Message: Invalid API call.");
+    Mockito.doThrow(invalidSymbol).when(primary).getCandleSeries("AAPL", FROM, TO);
+
+    assertSame(invalidSymbol, assertThrows(StockQuoteServiceException.class,
+        () -> service(Duration.ofSeconds(5)).getStockQuote("AAPL", FROM, TO)));
+    verify(secondary, never()).getCandleSeries(any(), any(), any());
+  }
+
+  @Test
+  void fullPoolRunsThePrimaryOnTheCallingThread() throws Exception {
+    Thread caller = Thread.currentThread();
+    Mockito.doAnswer(invocation -> {
+      assertSame(caller, Thread.currentThread());
+      return series(FROM, TO);
+    }).when(primary).getCandleSeries("AAPL", FROM, TO);
+    FailoverStockQuotesService service = new FailoverStockQuotesService(primary, secondary,
+        "tiingo", runnable -> {
+          throw new RejectedExecutionException();
+        }, FailoverStockQuotesService.DEFAULT_HEDGE_PERCENTILE, 1.0, Duration.ofMillis(1),
+        registry);
+
+    assertEquals(10, service.getStockQuote("AAPL", FROM, TO).size());
+    verify(secondary, never()).getCandleSeries(any(), any(), any());
+  }
+
+  @Test
+  void bothFailingReportsSecondaryWithPrimarySuppressed() throws Exception {
+    StockQuoteServiceException primaryFailure =
+        new StockQuoteThrottledException("Rate limit exceeded!!");
+    StockQuoteServiceException secondaryFailure = new StockQuoteServiceException("secondary down");
+    Mockito.doThrow(primaryFailure).when(primary).getCandleSeries("AAPL", FROM, TO);
+    Mockito.doThrow(secondaryFailure).when(secondary).getCandleSeries("AAPL", FROM, TO);
+
+    StockQuoteServiceException thrown = assertThrows(StockQuoteServiceException.class,
+        () -> service(Duration.ofSeconds(5)).getStockQuote("AAPL", FROM, TO));
+    assertSame(secondaryFailure, thrown);
+    assertSame(primaryFailure, thrown.getSuppressed()[0]);
+  }
+
+  private FailoverStockQuotesService service(Duration initialHedgeDelay) {
+    return new FailoverStockQuotesService(primary, secondary, "tiingo", executor,
+        FailoverStockQuotesService.DEFAULT_HEDGE_PERCENTILE, 1.0, initialHedgeDelay, registry);
+  }
+
+  private static CandleSeries series(LocalDate from, LocalDate to) {
+    return CandleSeries.of(candles(from, to));
+  }
+
+  private static List<Candle> candles(LocalDate from, LocalDate to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen(100.0);
+      candle.setClose(100.0 + day.getDayOfYear());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,56 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import com.crio.warmup.stock.metrics.MetricsRegistry;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredStockQuotesServiceTest {
+
+  private static final LocalDate FROM = LocalDate.parse("2019-01-01");
+  private static final LocalDate TO = LocalDate.parse("2019-12-31");
+
+  @Mock
+  private StockQuotesService delegate;
+
+  @Test
+  void recordsLatencyFailuresAndThrottles() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    MeteredStockQuotesService service =
+        new MeteredStockQuotesService(delegate, "tiingo", registry);
+    Mockito.doReturn(CandleSeries.empty()).when(delegate)
+        .getCandleSeries(eq("AAPL"), any(), any());
+    Mockito.doThrow(new StockQuoteThrottledException("slow down")).when(delegate)
+        .getCandleSeries(eq("MSFT"), any(), any());
+    Mockito.doThrow(new StockQuoteServiceException("boom")).when(delegate)
+        .getCandleSeries(eq("GOOGL"), any(), any());
+
+    service.getCandleSeries("AAPL", FROM, TO);
+    assertThrows(StockQuoteThrottledException.class,
+        () -> service.getCandleSeries("MSFT", FROM, TO));
+    assertThrows(StockQuoteServiceException.class,
+        () -> service.getCandleSeries("GOOGL", FROM, TO));
+
+    assertEquals(3, registry.histogram("qmoney_quote_fetch_seconds", "", "provider", "tiingo")
+        .getCount());
+    assertEquals(1, registry.counter("qmoney_quote_throttled_total", "", "provider", "tiingo")
+        .get());
+    assertEquals(1, registry.counter("qmoney_quote_fetch_failures_total", "",
+        "provider", "tiingo").get());
+    assertEquals(0, registry.gauge("qmoney_quote_fetches_in_flight", "", "provider", "tiingo")
+        .get());
+  }
+}
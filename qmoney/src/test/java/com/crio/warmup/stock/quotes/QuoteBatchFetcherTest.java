@@ -0,0 +1,131 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.CandleSeries;
+import com.crio.warmup.stock.dto.DateRange;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteServiceException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class QuoteBatchFetcherTest {
+
+  private static final DateRange JANUARY =
+      DateRange.of(LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-31"));
+
+  @Test
+  void defaultBatchFetchesOnTheCallingThread() throws Exception {
+    Thread caller = Thread.currentThread();
+    StockQuotesService service = (symbol, from, to) -> {
+      assertSame(caller, Thread.currentThread());
+      return candles(from, to);
+    };
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    requests.put("MSFT", JANUARY);
+    requests.put("AAPL", JANUARY);
+
+    assertEquals(2, service.getStockQuotes(requests).size());
+  }
+
+  @Test
+  void batchFetchesSymbolsConcurrentlyOnTheCallersExecutor() throws Exception {
+    CountDownLatch allStarted = new CountDownLatch(3);
+    StockQuotesService service = (symbol, from, to) -> {
+      allStarted.countDown();
+      try {
+        assertTrue(allStarted.await(5, TimeUnit.SECONDS), "fetches were not concurrent");
+      } catch (InterruptedException e) {
+        throw new StockQuoteServiceException("Interrupted", e);
+      }
+      return candles(from, to);
+    };
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    requests.put("MSFT", JANUARY);
+    requests.put("AAPL", DateRange.of(LocalDate.parse("2019-01-10"),
+        LocalDate.parse("2019-01-19")));
+    requests.put("GOOGL", JANUARY);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Map<String, CandleSeries> quotes = service.getStockQuotes(requests, executor, 3);
+
+      assertEquals(List.of("MSFT", "AAPL", "GOOGL"), new ArrayList<>(quotes.keySet()));
+      assertEquals(31, quotes.get("MSFT").size());
+      assertEquals(10, quotes.get("AAPL").size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void parallelismCapsFetchesInFlight() throws Exception {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    StockQuotesService service = (symbol, from, to) -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        throw new StockQuoteServiceException("Interrupted", e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+      return candles(from, to);
+    };
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    for (int i = 0; i < 40; i++) {
+      requests.put("S" + i, JANUARY);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      assertEquals(40, service.getStockQuotes(requests, executor, 3).size());
+      assertTrue(maxInFlight.get() <= 3);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void firstFailureIsRethrown() {
+    StockQuotesService service = (symbol, from, to) -> {
+      if (symbol.equals("AAPL")) {
+        throw new StockQuoteServiceException("Rate limit exceeded!!");
+      }
+      return candles(from, to);
+    };
+    Map<String, DateRange> requests = new LinkedHashMap<>();
+    requests.put("MSFT", JANUARY);
+    requests.put("AAPL", JANUARY);
+
+    StockQuoteServiceException error = assertThrows(StockQuoteServiceException.class,
+        () -> service.getStockQuotes(requests));
+    assertEquals("Rate limit exceeded!!", error.getMessage());
+  }
+
+  private static List<Candle> candles(LocalDate from, LocalDate to) {
+    List<Candle> candles = new ArrayList<>();
+    for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      TiingoCandle candle = new TiingoCandle();
+      candle.setDate(day);
+      candle.setOpen(100.0);
+      candle.setClose(100.0 + day.getDayOfMonth());
+      candles.add(candle);
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,121 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.crio.warmup.stock.metrics.Counter;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+class QuoteHttpClientsTest {
+
+  private static final String BODY = "[{\"date\":\"2019-01-02\",\"open\":100.0,\"close\":110.0}]";
+
+  private HttpServer server;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger gzipResponses = new AtomicInteger();
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/prices", exchange -> {
+      clientPorts.add(exchange.getRemoteAddress().getPort());
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+      if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+        body = gzip(body);
+        gzipResponses.incrementAndGet();
+        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(2_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  void reusesOneKeepAliveConnectionAndInflatesGzip() {
+    RestTemplate restTemplate =
+        QuoteHttpClients.newRestTemplate(QuoteHttpClients.Settings.defaults());
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(BODY, restTemplate.getForObject(url("/prices"), String.class));
+    }
+
+    assertEquals(1, clientPorts.size());
+    assertEquals(5, gzipResponses.get());
+  }
+
+  @Test
+  void countsResponseBytesBeforeInflating() throws IOException {
+    RestTemplate restTemplate =
+        QuoteHttpClients.newRestTemplate(QuoteHttpClients.Settings.defaults());
+    Counter bytes = QuoteHttpClients.responseBytes("127.0.0.1");
+    long before = bytes.get();
+
+    for (int i = 0; i < 3; i++) {
+      restTemplate.getForObject(url("/prices"), String.class);
+    }
+
+    assertEquals(3L * gzip(BODY.getBytes(StandardCharsets.UTF_8)).length, bytes.get() - before);
+  }
+
+  @Test
+  void labelsResponseBytesWithTheProviderDomain() {
+    assertEquals("tiingo", QuoteHttpClients.providerOf("api.tiingo.com"));
+    assertEquals("alphavantage", QuoteHttpClients.providerOf("www.alphavantage.co"));
+    assertEquals("127.0.0.1", QuoteHttpClients.providerOf("127.0.0.1"));
+  }
+
+  @Test
+  void readTimeoutFailsTheCall() {
+    RestTemplate restTemplate = QuoteHttpClients.newRestTemplate(
+        QuoteHttpClients.Settings.defaults().readTimeout(Duration.ofMillis(200)));
+
+    assertThrows(ResourceAccessException.class,
+        () -> restTemplate.getForObject(url("/slow"), String.class));
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(body);
+    }
+    return compressed.toByteArray();
+  }
+}
@@ -0,0 +1,63 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.warmup.stock.dto.Candle;
+import com.crio.warmup.stock.dto.TiingoCandle;
+import com.crio.warmup.stock.exception.StockQuoteThrottledException;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitedStockQuotesServiceTest {
+
+  @Mock
+  private StockQuotesService upstream;
+
+  private long now;
+  private final RateLimiter rateLimiter = new RateLimiter(10, 1, () -> now,
+      nanos -> now += nanos);
+
+  @Test
+  void throttledCallIsRetriedAfterBackoff() throws Exception {
+    TiingoCandle candle = new TiingoCandle();
+    candle.setDate(LocalDate.parse("2019-01-02"));
+    candle.setClose(157.92);
+    Mockito.when(upstream.getStockQuote(eq("AAPL"), any(), any()))
+        .thenThrow(new StockQuoteThrottledException("Note: slow down"))
+        .thenReturn(List.of(candle));
+    RateLimitedStockQuotesService service =
+        new RateLimitedStockQuotesService(upstream, rateLimiter);
+
+    List<Candle> candles = service.getStockQuote("AAPL", LocalDate.parse("2019-01-01"),
+        LocalDate.parse("2019-01-04"));
+
+    assertEquals(157.92, candles.get(0).getClose(), 0.0001);
+    verify(upstream, times(2)).getStockQuote(eq("AAPL"), any(), any());
+    assertTrue(now >= RateLimiter.INITIAL_BACKOFF.toNanos());
+  }
+
+  @Test
+  void givesUpAfterMaxRetries() throws Exception {
+    Mockito.when(upstream.getStockQuote(eq("AAPL"), any(), any()))
+        .thenThrow(new StockQuoteThrottledException("Note: slow down"));
+    RateLimitedStockQuotesService service =
+        new RateLimitedStockQuotesService(upstream, rateLimiter, 2);
+
+    assertThrows(StockQuoteThrottledException.class, () -> service.getStockQuote("AAPL",
+        LocalDate.parse("2019-01-01"), LocalDate.parse("2019-01-04")));
+    verify(upstream, times(3)).getStockQuote(eq("AAPL"), any(), any());
+  }
+}
@@ -0,0 +1,58 @@
+
+package com.crio.warmup.stock.quotes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private long now;
+  private final List<Long> sleeps = new ArrayList<>();
+  private final RateLimiter rateLimiter = new RateLimiter(2, 2, () -> now, nanos -> {
+    sleeps.add(nanos);
+    now += nanos;
+  });
+
+  @Test
+  void burstPassesThenCallsArePaced() throws Exception {
+    rateLimiter.acquire();
+    rateLimiter.acquire();
+    assertTrue(sleeps.isEmpty());
+
+    rateLimiter.acquire();
+    rateLimiter.acquire();
+
+    assertEquals(List.of(TimeUnit.MILLISECONDS.toNanos(500), TimeUnit.MILLISECONDS.toNanos(500)),
+        sleeps);
+  }
+
+  @Test
+  void throttleHalvesRateAndPauses() throws Exception {
+    rateLimiter.acquire();
+    rateLimiter.acquire();
+    rateLimiter.onThrottled();
+
+    rateLimiter.acquire();
+
+    assertEquals(1.0, rateLimiter.getRate(), 1e-9);
+    assertEquals(TimeUnit.SECONDS.toNanos(2), (long) sleeps.get(0));
+  }
+
+  @Test
+  void successRecoversRateUpToConfiguredMaximum() {
+    rateLimiter.onThrottled();
+    rateLimiter.onThrottled();
+    assertEquals(0.5, rateLimiter.getRate(), 1e-9);
+
+    for (int i = 0; i < 100; i++) {
+      rateLimiter.onSuccess();
+    }
+
+    assertEquals(2.0, rateLimiter.getRate(), 1e-9);
+  }
+}
@@ -0,0 +1,163 @@
+
+package com.crio.warmup.stock.quotes;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+// Answers every request after a delay without holding a thread, like a real async client.
+final class StubHttpClient extends HttpClient {
+
+  final List<URI> uris = Collections.synchronizedList(new ArrayList<>());
+  final List<CompletableFuture<?>> exchanges = Collections.synchronizedList(new ArrayList<>());
+  private final Function<URI, StubResponse> responder;
+  private final long delayMillis;
+
+  StubHttpClient(Function<URI, StubResponse> responder, long delayMillis) {
+    this.responder = responder;
+    this.delayMillis = delayMillis;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+      HttpResponse.BodyHandler<T> responseBodyHandler) {
+    uris.add(request.uri());
+    StubResponse stub = responder.apply(request.uri());
+    HttpResponse<byte[]> response = new HttpResponse<byte[]>() {
+      @Override
+      public int statusCode() {
+        return stub.status;
+      }
+
+      @Override
+      public HttpRequest request() {
+        return request;
+      }
+
+      @Override
+      public Optional<HttpResponse<byte[]>> previousResponse() {
+        return Optional.empty();
+      }
+
+      @Override
+      public HttpHeaders headers() {
+        return HttpHeaders.of(Map.of(), (name, value) -> true);
+      }
+
+      @Override
+      public byte[] body() {
+        return stub.body.getBytes(StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+      }
+
+      @Override
+      public URI uri() {
+        return request.uri();
+      }
+
+      @Override
+      public Version version() {
+        return Version.HTTP_2;
+      }
+    };
+    CompletableFuture<HttpResponse<T>> exchange = CompletableFuture.supplyAsync(
+        () -> (HttpResponse<T>) (HttpResponse<?>) response,
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    exchanges.add(exchange);
+    return exchange;
+  }
+
+  @Override
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+      HttpResponse.BodyHandler<T> responseBodyHandler,
+      HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+    return sendAsync(request, responseBodyHandler);
+  }
+
+  @Override
+  public <T> HttpResponse<T> send(HttpRequest request,
+      HttpResponse.BodyHandler<T> responseBodyHandler) throws IOException {
+    throw new IOException("blocking send is not expected");
+  }
+
+  @Override
+  public Optional<CookieHandler> cookieHandler() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Duration> connectTimeout() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Redirect followRedirects() {
+    return Redirect.NEVER;
+  }
+
+  @Override
+  public Optional<ProxySelector> proxy() {
+    return Optional.empty();
+  }
+
+  @Override
+  public SSLContext sslContext() {
+    return null;
+  }
+
+  @Override
+  public SSLParameters sslParameters() {
+    return null;
+  }
+
+  @Override
+  public Optional<Authenticator> authenticator() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Version version() {
+    return Version.HTTP_2;
+  }
+
+  @Override
+  public Optional<Executor> executor() {
+    return Optional.empty();
+  }
+
+  static final class StubResponse {
+
+    final int status;
+    final String body;
+
+    StubResponse(int status, String body) {
+      this.status = status;
+      this.body = body;
+    }
+  }
+}